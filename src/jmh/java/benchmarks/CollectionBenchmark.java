@@ -0,0 +1,167 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ArrayQueue;
+import util.ArrayStack;
+import util.IntQueue;
+import util.IntStack;
+import util.LinkedQueue;
+import util.LinkedStack;
+import util.LongStack;
+
+/**
+ * The class <b>CollectionBenchmark</b> measures filling and emptying the
+ * queues and stacks of the <b>util</b> package: the linked and the array
+ * implementations of <b>Queue</b> and <b>Stack</b> with the same boxed
+ * elements, and the primitive queue and stacks with the unboxed values.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionBenchmark {
+
+    /** The number of elements put in the collection. */
+    @Param({"1000", "100000"})
+    public int elements;
+
+    /** The elements, boxed once. */
+    private Integer[] values;
+
+    /** The queue being measured. */
+    private LinkedQueue<Integer> linkedQueue;
+
+    /** The stack being measured. */
+    private LinkedStack<Integer> linkedStack;
+
+    /** The array queue being measured. */
+    private ArrayQueue<Integer> arrayQueue;
+
+    /** The array stack being measured. */
+    private ArrayStack<Integer> arrayStack;
+
+    /** The int queue being measured. */
+    private IntQueue intQueue;
+
+    /** The int stack being measured. */
+    private IntStack intStack;
+
+    /** The long stack being measured. */
+    private LongStack longStack;
+
+    @Setup
+    public void setUp() {
+        values = new Integer[elements];
+        for (int i = 0; i < elements; i++) {
+            values[i] = i;
+        }
+        linkedQueue = new LinkedQueue<>();
+        linkedStack = new LinkedStack<>();
+        arrayQueue = new ArrayQueue<>();
+        arrayStack = new ArrayStack<>();
+        intQueue = new IntQueue();
+        intStack = new IntStack();
+        longStack = new LongStack();
+    }
+
+    @Benchmark
+    public int linkedQueue() {
+        for (Integer value : values) {
+            linkedQueue.enqueue(value);
+        }
+        int sum = 0;
+        while (!linkedQueue.isEmpty()) {
+            sum += linkedQueue.dequeue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int linkedStack() {
+        for (Integer value : values) {
+            linkedStack.push(value);
+        }
+        int sum = 0;
+        while (!linkedStack.isEmpty()) {
+            sum += linkedStack.pop();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int arrayQueue() {
+        for (Integer value : values) {
+            arrayQueue.enqueue(value);
+        }
+        int sum = 0;
+        while (!arrayQueue.isEmpty()) {
+            sum += arrayQueue.dequeue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int arrayStack() {
+        for (Integer value : values) {
+            arrayStack.push(value);
+        }
+        int sum = 0;
+        while (!arrayStack.isEmpty()) {
+            sum += arrayStack.pop();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intQueue() {
+        for (int i = 0; i < elements; i++) {
+            intQueue.enqueue(i);
+        }
+        int sum = 0;
+        while (!intQueue.isEmpty()) {
+            sum += intQueue.dequeue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intStack() {
+        for (int i = 0; i < elements; i++) {
+            intStack.push(i);
+        }
+        int sum = 0;
+        while (!intStack.isEmpty()) {
+            sum += intStack.pop();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long longStack() {
+        for (int i = 0; i < elements; i++) {
+            longStack.push(i);
+        }
+        long sum = 0;
+        while (!longStack.isEmpty()) {
+            sum += longStack.pop();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>EscapeBenchmark</b> measures the time taken to compute one
+ * move of the blue dot, by the ``breadth-first'' search from the blue dot and
+ * by the lookup in the distance field, on boards of several sizes and
+ * densities of selected dots.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeBenchmark {
+
+    /** The size of the board. */
+    @Param({"9", "51", "201", "1001"})
+    public int size;
+
+    /** The probability that a dot is selected. */
+    @Param({"0.1", "0.3", "0.5"})
+    public double density;
+
+    /** The model of the game. */
+    private Object model;
+
+    /** The ``breadth-first'' search from the blue dot. */
+    private Object escapeSearch;
+
+    /** The lookup in the distance field. */
+    private Object fieldEscape;
+
+    @Setup
+    public void setUp() throws Throwable {
+        model = Game.newModel(size, density, 42);
+        escapeSearch = (Object) Game.NEW_ESCAPE_SEARCH.invokeExact(new Random(7));
+        fieldEscape = (Object) Game.NEW_FIELD_ESCAPE.invokeExact(new Random(7));
+        // computes the distance field before the measurements, the direction
+        // is dropped: invoke, unlike invokeExact, adapts the call to void
+        Game.FIND_DIRECTION.invoke(fieldEscape, model);
+    }
+
+    @Benchmark
+    public int escapeSearch() throws Throwable {
+        return (int) Game.FIND_DIRECTION.invokeExact(escapeSearch, model);
+    }
+
+    @Benchmark
+    public int fieldEscape() throws Throwable {
+        return (int) Game.FIND_DIRECTION.invokeExact(fieldEscape, model);
+    }
+
+}
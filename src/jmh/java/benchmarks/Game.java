@@ -0,0 +1,207 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import javax.swing.JComponent;
+
+/**
+ * The class <b>Game</b> gives the benchmarks access to the classes of the
+ * game. JMH does not accept benchmarks in the default package, and classes of
+ * the default package cannot be imported from a named package, so the game's
+ * methods are looked up once as method handles. Held in static final fields,
+ * the handles are constants for the JIT compiler and are called as fast as
+ * direct calls.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+final class Game {
+
+    /** GameModel(int size, Random generator). */
+    static final MethodHandle NEW_MODEL;
+
+    /** GameModel.select(int i, int j). */
+    static final MethodHandle SELECT;
+
+    /** GameModel.isAvailable(int index). */
+    static final MethodHandle IS_AVAILABLE;
+
+    /** GameModel.getCurrentIndex(). */
+    static final MethodHandle GET_CURRENT_INDEX;
+
+    /** GameModel.clone(). */
+    static final MethodHandle CLONE;
+
+    /** GameModel.restore(GameModel other). */
+    static final MethodHandle RESTORE;
+
+    /** GameModel.getModel(). */
+    static final MethodHandle GET_MODEL;
+
+    /** GameModel.setModel(int[][] model). */
+    static final MethodHandle SET_MODEL;
+
+    /** EscapeSearch(Random generator). */
+    static final MethodHandle NEW_ESCAPE_SEARCH;
+
+    /** FieldEscape(Random generator). */
+    static final MethodHandle NEW_FIELD_ESCAPE;
+
+    /** EscapeStrategy.findDirection(GameModel gameModel). */
+    static final MethodHandle FIND_DIRECTION;
+
+    /** SaveFormat.encode(GameModel gameModel, long seed). */
+    static final MethodHandle ENCODE;
+
+    /** SaveFormat.decode(ByteBuffer buffer). */
+    static final MethodHandle DECODE;
+
+    /** GameEngine(GameModel gameModel, EscapeStrategy escapeStrategy). */
+    static final MethodHandle NEW_ENGINE;
+
+    /** GameEngine.play(int i, int j). */
+    static final MethodHandle PLAY;
+
+    /** GameEngine.undo(). */
+    static final MethodHandle UNDO;
+
+    /** GameEngine.getSnapshot(). */
+    static final MethodHandle GET_SNAPSHOT;
+
+    /** GameEngine.getChanges(). */
+    static final MethodHandle GET_CHANGES;
+
+    /** BoardCanvas(int size, GameController gameController). */
+    static final MethodHandle NEW_BOARD_CANVAS;
+
+    /** BoardView(int size, GameController gameController). */
+    static final MethodHandle NEW_BOARD_VIEW;
+
+    /** BoardRenderer.update(Snapshot snapshot, ChangeSet changes). */
+    static final MethodHandle UPDATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> model = Class.forName("GameModel");
+            Class<?> strategy = Class.forName("EscapeStrategy");
+
+            NEW_MODEL = lookup.findConstructor(model,
+                    MethodType.methodType(void.class, int.class, Random.class))
+                    .asType(MethodType.methodType(Object.class, int.class, Random.class));
+            SELECT = virtual(lookup, model, "select", void.class, int.class, int.class);
+            IS_AVAILABLE = virtual(lookup, model, "isAvailable", boolean.class, int.class);
+            GET_CURRENT_INDEX = virtual(lookup, model, "getCurrentIndex", int.class);
+            CLONE = virtual(lookup, model, "clone", model);
+            RESTORE = virtual(lookup, model, "restore", void.class, model);
+            GET_MODEL = virtual(lookup, model, "getModel", int[][].class);
+            SET_MODEL = virtual(lookup, model, "setModel", void.class, int[][].class);
+            NEW_ESCAPE_SEARCH = constructor(lookup, Class.forName("EscapeSearch"));
+            NEW_FIELD_ESCAPE = constructor(lookup, Class.forName("FieldEscape"));
+            FIND_DIRECTION = virtual(lookup, strategy, "findDirection", int.class, model);
+            Class<?> save = Class.forName("SaveFormat");
+            ENCODE = lookup.findStatic(save, "encode",
+                    MethodType.methodType(ByteBuffer.class, model, long.class))
+                    .asType(MethodType.methodType(ByteBuffer.class, Object.class, long.class));
+            DECODE = lookup.findStatic(save, "decode", MethodType.methodType(model, ByteBuffer.class))
+                    .asType(MethodType.methodType(Object.class, ByteBuffer.class));
+            Class<?> engine = Class.forName("GameEngine");
+            NEW_ENGINE = lookup.findConstructor(engine,
+                    MethodType.methodType(void.class, model, strategy))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            PLAY = virtual(lookup, engine, "play", int.class, int.class, int.class);
+            UNDO = virtual(lookup, engine, "undo", void.class);
+            GET_SNAPSHOT = virtual(lookup, engine, "getSnapshot", Class.forName("Snapshot"));
+            GET_CHANGES = virtual(lookup, engine, "getChanges", Class.forName("ChangeSet"));
+            NEW_BOARD_CANVAS = renderer(lookup, Class.forName("BoardCanvas"));
+            NEW_BOARD_VIEW = renderer(lookup, Class.forName("BoardView"));
+            UPDATE = virtual(lookup, Class.forName("BoardRenderer"), "update", void.class,
+                    Class.forName("Snapshot"), Class.forName("ChangeSet"));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Creates a model of a given size whose dots are selected at random with
+     * a given density. The blue dot stays where the model put it.
+     *
+     * @param size The size of the board.
+     * @param density The probability that a dot is selected.
+     * @param seed The seed of the random generator.
+     * @return The model.
+     */
+    static Object newModel(int size, double density, long seed) throws Throwable {
+        Random generator = new Random(seed);
+        Object model = (Object) NEW_MODEL.invokeExact(size, generator);
+        int dot = (int) GET_CURRENT_INDEX.invokeExact(model);
+        for (int index = 0; index < size * size; index++) {
+            if (index != dot && generator.nextDouble() < density
+                    && (boolean) IS_AVAILABLE.invokeExact(model, index)) {
+                SELECT.invokeExact(model, index % size, index / size);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Helper method: looks up an instance method, typed with <b>Object</b>
+     * in place of the game's classes.
+     */
+    private static MethodHandle virtual(MethodHandles.Lookup lookup, Class<?> owner,
+            String name, Class<?> returned, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup.findVirtual(owner, name,
+                MethodType.methodType(returned, parameters));
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isGameClass(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (isGameClass(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /**
+     * Helper method: checks if a class is one of the game's classes, i.e., a
+     * class of the default package.
+     */
+    private static boolean isGameClass(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getName().indexOf('.') < 0;
+    }
+
+    /**
+     * Helper method: looks up the constructor of an escape strategy taking a
+     * random generator.
+     */
+    private static MethodHandle constructor(MethodHandles.Lookup lookup, Class<?> owner)
+            throws ReflectiveOperationException {
+        return lookup.findConstructor(owner,
+                MethodType.methodType(void.class, Random.class))
+                .asType(MethodType.methodType(Object.class, Random.class));
+    }
+
+    /**
+     * Helper method: looks up the constructor of a view of the board taking
+     * its size and the controller of the game, typed as a swing component.
+     */
+    private static MethodHandle renderer(MethodHandles.Lookup lookup, Class<?> owner)
+            throws ReflectiveOperationException {
+        return lookup.findConstructor(owner,
+                MethodType.methodType(void.class, int.class, Class.forName("GameController")))
+                .asType(MethodType.methodType(JComponent.class, int.class, Object.class));
+    }
+
+    /**
+     * The class <b>Game</b> cannot be instantiated.
+     */
+    private Game() {
+    }
+
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>ModelCopyBenchmark</b> measures the copies of the model made
+ * by the undo/redo history: <b>clone()</b>, <b>restore()</b> and
+ * <b>setModel()</b>.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelCopyBenchmark {
+
+    /** The size of the board. */
+    @Param({"9", "51", "201", "1001"})
+    public int size;
+
+    /** The model of the game. */
+    private Object model;
+
+    /** Another model of the same size. */
+    private Object other;
+
+    /** The statuses of the other model. */
+    private int[][] statuses;
+
+    @Setup
+    public void setUp() throws Throwable {
+        model = Game.newModel(size, 0.1, 42);
+        other = Game.newModel(size, 0.1, 43);
+        statuses = (int[][]) Game.GET_MODEL.invokeExact(other);
+    }
+
+    @Benchmark
+    public Object cloneModel() throws Throwable {
+        return (Object) Game.CLONE.invokeExact(model);
+    }
+
+    @Benchmark
+    public Object restore() throws Throwable {
+        Game.RESTORE.invokeExact(model, other);
+        return model;
+    }
+
+    @Benchmark
+    public Object setModel() throws Throwable {
+        Game.SET_MODEL.invokeExact(model, statuses);
+        return model;
+    }
+
+}
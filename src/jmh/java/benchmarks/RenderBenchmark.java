@@ -0,0 +1,209 @@
+package benchmarks;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>RenderBenchmark</b> measures the time taken by a view of the
+ * board, <b>BoardCanvas</b> or <b>BoardView</b>, to show one move: the update
+ * with the change set of the move, then the paint of the region it asked to
+ * repaint. The views run headless and paint on an offscreen image the size
+ * of the viewport of the game. A move and its undo are shown in turn, and
+ * compared with an update of the whole board, painted in full.
+ *
+ * The repaints are collected by a repaint manager that keeps the union of
+ * the regions, as Swing coalesces them into a single paint.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    /** The size in pixels of the offscreen image, i.e., of the viewport. */
+    private static final int VIEWPORT = 800;
+
+    /** The size of the board. */
+    @Param({"9", "51", "201"})
+    public int size;
+
+    /** The view of the board. */
+    @Param({"BoardCanvas", "BoardView"})
+    public String renderer;
+
+    /** The view of the board, as a swing component. */
+    private JComponent view;
+
+    /** The snapshots after the move and after its undo. */
+    private final Object[] snapshots = new Object[2];
+
+    /** The change sets of the move and of its undo. */
+    private final Object[] changes = new Object[2];
+
+    /** The change set of the whole board. */
+    private Object all;
+
+    /** The number of moves shown, the move and its undo taking turns. */
+    private int shown;
+
+    /** The offscreen image painted on. */
+    private BufferedImage image;
+
+    /** The repaint manager collecting the regions to repaint. */
+    private Collector collector;
+
+    /** The repaint manager replaced by the collector. */
+    private RepaintManager previous;
+
+    /**
+     * The class <b>Collector</b> keeps the union of the regions to repaint
+     * of the view, instead of scheduling their paint.
+     */
+    private static final class Collector extends RepaintManager {
+
+        /** The view of the board. */
+        private final JComponent view;
+
+        /** The union of the regions to repaint, in the view's coordinates. */
+        private final Rectangle dirty = new Rectangle();
+
+        /** Creates a collector of the regions to repaint of a view. */
+        Collector(JComponent view) {
+            this.view = view;
+            // paints straight on the graphics given, which is offscreen
+            setDoubleBufferingEnabled(false);
+        }
+
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            Rectangle region = SwingUtilities.convertRectangle(c, new Rectangle(x, y, w, h), view);
+            if (dirty.isEmpty()) {
+                dirty.setBounds(region);
+            } else {
+                dirty.add(region);
+            }
+        }
+
+        /** Returns the regions to repaint since the last call, and clears them. */
+        Rectangle take() {
+            Rectangle region = new Rectangle(dirty);
+            dirty.setBounds(0, 0, 0, 0);
+            return region;
+        }
+
+    }
+
+    @Setup
+    public void setUp() throws Throwable {
+        Object model = Game.newModel(size, 0.1, 42);
+        Object engine = (Object) Game.NEW_ENGINE.invokeExact(model,
+                (Object) Game.NEW_ESCAPE_SEARCH.invokeExact(new Random(7)));
+        all = (Object) Game.GET_CHANGES.invokeExact(engine);
+        Object start = (Object) Game.GET_SNAPSHOT.invokeExact(engine);
+
+        // the nearest available dot after the blue dot, as a player would
+        // block next to it
+        int move = (int) Game.GET_CURRENT_INDEX.invokeExact(model) + 1;
+        while (!(boolean) Game.IS_AVAILABLE.invokeExact(model, move)) {
+            move++;
+        }
+        // the status is dropped: invoke, unlike invokeExact, adapts the call
+        // to void
+        Game.PLAY.invoke(engine, move % size, move / size);
+        snapshots[0] = (Object) Game.GET_SNAPSHOT.invokeExact(engine);
+        changes[0] = (Object) Game.GET_CHANGES.invokeExact(engine);
+        Game.UNDO.invokeExact(engine);
+        snapshots[1] = (Object) Game.GET_SNAPSHOT.invokeExact(engine);
+        changes[1] = (Object) Game.GET_CHANGES.invokeExact(engine);
+
+        view = "BoardView".equals(renderer)
+                ? (JComponent) Game.NEW_BOARD_VIEW.invokeExact(size, (Object) null)
+                : (JComponent) Game.NEW_BOARD_CANVAS.invokeExact(size, (Object) null);
+        view.setSize(view.getPreferredSize());
+        layOut(view);
+        previous = RepaintManager.currentManager(view);
+        collector = new Collector(view);
+        RepaintManager.setCurrentManager(collector);
+        image = new BufferedImage(VIEWPORT, VIEWPORT, BufferedImage.TYPE_INT_RGB);
+
+        Game.UPDATE.invokeExact((Object) view, start, all);
+        paint(collector.take());
+    }
+
+    @TearDown
+    public void tearDown() {
+        RepaintManager.setCurrentManager(previous);
+    }
+
+    @Benchmark
+    public BufferedImage changes() throws Throwable {
+        int k = shown++ & 1;
+        Game.UPDATE.invokeExact((Object) view, snapshots[k], changes[k]);
+        return paint(collector.take());
+    }
+
+    @Benchmark
+    public BufferedImage all() throws Throwable {
+        int k = shown++ & 1;
+        Game.UPDATE.invokeExact((Object) view, snapshots[k], all);
+        collector.take();
+        return paint(new Rectangle(0, 0, VIEWPORT, VIEWPORT));
+    }
+
+    /**
+     * Helper method: paints a region of the view on the offscreen image,
+     * the region's corner at the corner of the image.
+     *
+     * @param region The region of the view, in the view's coordinates.
+     * @return The offscreen image.
+     */
+    private BufferedImage paint(Rectangle region) {
+        Graphics2D g = image.createGraphics();
+        g.translate(-region.x, -region.y);
+        g.clipRect(region.x, region.y, Math.min(region.width, VIEWPORT), Math.min(region.height, VIEWPORT));
+        view.paint(g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Helper method: lays out a container and all its descendants, as a
+     * window would when it is shown.
+     *
+     * @param container The container.
+     */
+    private static void layOut(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) {
+                layOut((Container) child);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>SerializationBenchmark</b> measures a round trip of the model
+ * through the save format of the class <b>SaveFormat</b>, in memory so the
+ * disk is not measured.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /** The size of the board. */
+    @Param({"9", "51", "201", "1001"})
+    public int size;
+
+    /** The model of the game. */
+    private Object model;
+
+    @Setup
+    public void setUp() throws Throwable {
+        model = Game.newModel(size, 0.1, 42);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Throwable {
+        ByteBuffer buffer = (ByteBuffer) Game.ENCODE.invokeExact(model, 42L);
+        return (Object) Game.DECODE.invokeExact(buffer);
+    }
+
+}
@@ -0,0 +1,284 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import util.Util;
+
+/**
+ * The class <b>BatchSimulator</b> plays a large number of independent games
+ * between a simulated player and the blue dot, spread over a fork-join pool,
+ * to evaluate player strategies. Each game is played by a headless
+ * <b>GameEngine</b> with the same escape logic as the interactive game, and
+ * uses random generators seeded from the base seed and the number of the
+ * game, so a batch gives the same results however it is split over threads.
+ * The games of a batch can be appended to a <b>GameArchive</b>, in the order
+ * they end.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class BatchSimulator {
+
+    /** The number of games under which a task is not split any further. */
+    private static final int THRESHOLD = 64;
+
+    /** The size of the boards. */
+    private final int size;
+
+    /** The factory of the player strategy, called once per task. */
+    private final Supplier<PlayerStrategy> players;
+
+    /** The pool running the games. */
+    private final ForkJoinPool pool;
+
+    /**
+     * The class <b>Report</b> that holds the aggregated results of a batch.
+     */
+    public static class Report {
+
+        /** The number of games played. */
+        private long games;
+
+        /** The number of games won by the player. */
+        private long wins;
+
+        /** The total number of steps over all games. */
+        private long steps;
+
+        /** The total number of steps over the games won by the player. */
+        private long winningSteps;
+
+        /** The time taken by the batch, in nanoseconds. */
+        private long elapsed;
+
+        /**
+         * Helper method: adds the results of another report.
+         *
+         * @param other The report to add.
+         * @return this report.
+         */
+        private Report merge(Report other) {
+            games += other.games;
+            wins += other.wins;
+            steps += other.steps;
+            winningSteps += other.winningSteps;
+            return this;
+        }
+
+        /**
+         * An instance method for getting the number of games played.
+         *
+         * @return The number of games.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * An instance method for getting the number of games won.
+         *
+         * @return The number of games won by the player.
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * An instance method for getting the ratio of games won.
+         *
+         * @return The win rate, between 0 and 1.
+         */
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        /**
+         * An instance method for getting the mean number of steps of a game.
+         *
+         * @return The mean number of steps.
+         */
+        public double getMeanSteps() {
+            return games == 0 ? 0 : (double) steps / games;
+        }
+
+        /**
+         * An instance method for getting the mean number of steps of a won
+         * game.
+         *
+         * @return The mean number of steps to win.
+         */
+        public double getMeanWinningSteps() {
+            return wins == 0 ? 0 : (double) winningSteps / wins;
+        }
+
+        /**
+         * An instance method for getting the throughput of the batch.
+         *
+         * @return The number of games played per second.
+         */
+        public double getGamesPerSecond() {
+            return elapsed == 0 ? 0 : games * 1e9 / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games, win rate %.4f, %.2f steps per game, "
+                    + "%.2f steps per win, %.0f games/sec",
+                    games, getWinRate(), getMeanSteps(), getMeanWinningSteps(),
+                    getGamesPerSecond());
+        }
+
+    }
+
+    /**
+     * The class <b>Batch</b> that plays a range of games, splitting itself
+     * in two while the range is larger than the threshold.
+     */
+    private class Batch extends RecursiveTask<Report> {
+
+        private static final long serialVersionUID = -1953270417760521431L;
+
+        /** The base seed of the games. */
+        private final long seed;
+
+        /** The number of the first game of the range. */
+        private final long from;
+
+        /** The number of the game after the last game of the range. */
+        private final long to;
+
+        /** The archive of the games, or null. */
+        private final transient GameArchive archive;
+
+        /**
+         * The constructor of the class <b>Batch</b>.
+         *
+         * @param seed The base seed of the games.
+         * @param from The number of the first game of the range.
+         * @param to The number of the game after the last game of the range.
+         * @param archive The archive of the games, or null.
+         */
+        private Batch(long seed, long from, long to, GameArchive archive) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.archive = archive;
+        }
+
+        @Override
+        protected Report compute() {
+            if (to - from > THRESHOLD) {
+                long middle = (from + to) >>> 1;
+                Batch left = new Batch(seed, from, middle, archive);
+                left.fork();
+                Report right = new Batch(seed, middle, to, archive).compute();
+                return right.merge(left.join());
+            }
+
+            // the generator and the escape search are reused for the range,
+            // the board and the moves of the blue dot follow the game seed
+            PlayerStrategy player = players.get();
+            Random playerGenerator = new Random();
+            EscapeSearch escapeSearch = new EscapeSearch();
+
+            Report report = new Report();
+            for (long game = from; game < to; game++) {
+                long gameSeed = Util.mix64(seed + game);
+                playerGenerator.setSeed(Util.mix64(gameSeed + 1));
+
+                GameModel gameModel = new GameModel(size, gameSeed);
+                GameEngine gameEngine = new GameEngine(gameModel, escapeSearch);
+                while (gameEngine.getStatus() == GameEngine.PLAYING) {
+                    int dot = player.chooseDot(gameModel, playerGenerator);
+                    gameEngine.play(dot % size, dot / size);
+                }
+                if (archive != null) {
+                    try {
+                        archive.append(gameEngine.getSnapshot());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                report.games++;
+                report.steps += gameModel.getNumberOfSteps();
+                if (gameEngine.getStatus() == GameEngine.WON) {
+                    report.wins++;
+                    report.winningSteps += gameModel.getNumberOfSteps();
+                }
+            }
+            return report;
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>BatchSimulator</b>.
+     *
+     * @param size The size of the boards.
+     * @param players The factory of the player strategy. Each task playing a
+     *                range of games gets its own strategy instance.
+     * @param pool The pool running the games.
+     */
+    public BatchSimulator(int size, Supplier<PlayerStrategy> players, ForkJoinPool pool) {
+        this.size = size;
+        this.players = players;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays a batch of games and aggregates their results. The same seed and
+     * number of games always give the same results.
+     *
+     * @param games The number of games to play.
+     * @param seed The base seed of the games.
+     * @return The report of the batch.
+     */
+    public Report run(long games, long seed) {
+        return run(games, seed, null);
+    }
+
+    /**
+     * Plays a batch of games, appends them to an archive and aggregates
+     * their results.
+     *
+     * @param games The number of games to play.
+     * @param seed The base seed of the games.
+     * @param archive The archive of the games, or null.
+     * @return The report of the batch.
+     * @throws UncheckedIOException Thrown if the archive cannot be written.
+     */
+    public Report run(long games, long seed, GameArchive archive) {
+        long start = System.nanoTime();
+        Report report = pool.invoke(new Batch(seed, 0, games, archive));
+        report.elapsed = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * The main method runs a batch of games of the <b>GreedyPlayer</b>.
+     *
+     * @param args Command line program arguments.
+     *             $ java BatchSimulator _GAMES_ _SIZE_ _SEED_ [_ARCHIVE_]
+     * @throws IOException Thrown if the archive cannot be opened or written.
+     */
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        BatchSimulator simulator = new BatchSimulator(size, GreedyPlayer::new,
+                ForkJoinPool.commonPool());
+        if (args.length > 3) {
+            try (GameArchive archive = new GameArchive(new File(args[3]))) {
+                System.out.println(simulator.run(games, seed, archive));
+            }
+        } else {
+            System.out.println(simulator.run(games, seed));
+        }
+    }
+
+}
@@ -0,0 +1,319 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import util.Cells;
+import util.Topology;
+
+/**
+ * The class <b>BoardCanvas</b> provides the view of very large boards. Unlike
+ * <b>BoardView</b>, which lays out one <b>DotButton</b> per dot, it is a single
+ * swing component painting the dots itself, so its cost does not depend on
+ * the size of the board:
+ * - only the dots intersecting the clip region are painted, and an update
+ *   only repaints the region of the changed dots;
+ * - the dot under the mouse is computed from the coordinates of the mouse,
+ *   the rows being shifted by half a dot as in <b>BoardView</b>: it is the
+ *   closest of the dot of the square under the mouse and of its neighbours
+ *   in the <b>Topology</b> of the board;
+ * - the dots are copied from the sheet of <b>DotAtlas</b> of their size;
+ * - it implements <b>Scrollable</b> to be shown in a <b>JScrollPane</b>, and
+ *   zooms in and out with the mouse wheel while the control key is down.
+ * The clicks on the dots are passed to the controller with <b>selectDot</b>.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class BoardCanvas extends JComponent implements Scrollable, BoardRenderer {
+
+    /**
+     * The version number of the serializable class associated by the
+     * serializable runtime.
+     */
+    private static final long serialVersionUID = 4407911733962157294L;
+
+    /** The size in pixels of a dot when the canvas is not zoomed. */
+    public static final int DEFAULT_CELL = 40;
+
+    /** The smallest size in pixels of a dot. */
+    public static final int MIN_CELL = 4;
+
+    /** The largest size in pixels of a dot. */
+    public static final int MAX_CELL = 80;
+
+    /** The largest size in pixels of the viewport the canvas asks for. */
+    private static final int VIEWPORT = 800;
+
+    /** The size of the board. */
+    private final int size;
+
+    /** The neighbours of the dots of the board. */
+    private final Topology topology;
+
+    /** The snapshot of the game being shown, or null before the first update. */
+    private Snapshot snapshot;
+
+    /** The index of the dot suggested by the last hint, or -1. */
+    private int hint = -1;
+
+    /** The size in pixels of a dot. */
+    private int cell = DEFAULT_CELL;
+
+    /** The index of the dot the mouse was pressed on, or -1. */
+    private int pressed = -1;
+
+    /**
+     * The constructor for the custom swing component <b>BoardCanvas</b>.
+     *
+     * @param size The size of the board.
+     * @param gameController the controller of the game.
+     */
+    public BoardCanvas(int size, GameController gameController) {
+        this.size = size;
+        this.topology = Topology.of(size);
+        setOpaque(true);
+        setBackground(Color.WHITE);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressed = SwingUtilities.isLeftMouseButton(e) ? indexAt(e.getX(), e.getY()) : -1;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                // a click, as for a button, is released on the dot it was pressed on
+                int index = indexAt(e.getX(), e.getY());
+                if (index != -1 && index == pressed) {
+                    gameController.selectDot(Cells.column(index, size), Cells.row(index, size));
+                }
+                pressed = -1;
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (e.isControlDown()) {
+                    zoom(e.getWheelRotation() < 0 ? cell * 5 / 4 + 1 : cell * 4 / 5, e.getPoint());
+                } else if (getParent() != null) {
+                    // a component listening to the wheel keeps it from the scroll pane
+                    getParent().dispatchEvent(SwingUtilities.convertMouseEvent(BoardCanvas.this, e, getParent()));
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * An instance method for getting the size in pixels of a dot.
+     *
+     * @return The size in pixels of a dot.
+     */
+    public int getCellSize() {
+        return cell;
+    }
+
+    /**
+     * Zooms the canvas, keeping the center of the visible region in place.
+     *
+     * @param cell The size in pixels of a dot, clamped between MIN_CELL and
+     *             MAX_CELL.
+     */
+    public void setCellSize(int cell) {
+        Rectangle visible = getVisibleRect();
+        zoom(cell, new Point(visible.x + visible.width / 2, visible.y + visible.height / 2));
+    }
+
+    @Override
+    public void update(Snapshot snapshot, ChangeSet changes) {
+        this.snapshot = snapshot;
+        if (changes.isAll()) {
+            repaint();
+        } else {
+            for (int k = 0; k < changes.size(); k++) {
+                repaintDot(changes.get(k));
+            }
+        }
+        showHint(-1);
+    }
+
+    @Override
+    public void showHint(int index) {
+        repaintDot(hint);
+        hint = index;
+        repaintDot(hint);
+    }
+
+    /**
+     * Returns the dot at a location of the canvas.
+     *
+     * @param x The x coordinate in pixels.
+     * @param y The y coordinate in pixels.
+     * @return The index (j*size+i) of the dot, or -1 if there is none.
+     */
+    public int indexAt(int x, int y) {
+        int j = Math.floorDiv(y - margin(), cell);
+        int i = Math.floorDiv(x - margin() - shift(j), cell);
+        if (!Cells.contains(i, j, size)) {
+            return -1;
+        }
+        int best = Cells.index(i, j, size);
+        long bestDistance = distance(best, x, y);
+        for (int slot = topology.start(best); slot < topology.end(best); slot++) {
+            int n = topology.neighbour(slot);
+            long distance = distance(n, x, y);
+            if (distance < bestDistance) {
+                best = n;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(2 * margin() + size * cell + cell / 2, 2 * margin() + size * cell);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (snapshot == null) {
+            return;
+        }
+        DotAtlas.Sheet sheet = DotAtlas.get().sheet(g, cell);
+
+        // only the rows and the columns intersecting the clip region
+        int firstRow = Math.max(0, Math.floorDiv(clip.y - margin(), cell));
+        int lastRow = Math.min(size - 1, Math.floorDiv(clip.y + clip.height - margin(), cell));
+        for (int j = firstRow; j <= lastRow; j++) {
+            int left = margin() + shift(j);
+            int firstColumn = Math.max(0, Math.floorDiv(clip.x - left, cell));
+            int lastColumn = Math.min(size - 1, Math.floorDiv(clip.x + clip.width - left, cell));
+            int y = margin() + j * cell;
+            for (int i = firstColumn; i <= lastColumn; i++) {
+                int x = left + i * cell;
+                if (Cells.index(i, j, size) == hint) {
+                    g.setColor(Color.GREEN);
+                    g.fillRect(x, y, cell, cell);
+                }
+                sheet.draw(g, snapshot.getCurrentStatus(i, j), x, y, cell);
+            }
+        }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferred = getPreferredSize();
+        return new Dimension(Math.min(preferred.width, VIEWPORT), Math.min(preferred.height, VIEWPORT));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return cell;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(cell, extent - cell);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Helper method: zooms the canvas, keeping a point in place in the
+     * viewport.
+     *
+     * @param cell The new size in pixels of a dot.
+     * @param anchor The point of the canvas to keep in place.
+     */
+    private void zoom(int cell, Point anchor) {
+        cell = Math.max(MIN_CELL, Math.min(MAX_CELL, cell));
+        if (cell == this.cell) {
+            return;
+        }
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        Point view = viewport == null ? new Point() : viewport.getViewPosition();
+        double scale = (double) cell / this.cell;
+        this.cell = cell;
+        setSize(getPreferredSize());
+        revalidate();
+        if (viewport != null) {
+            int x = (int) Math.round(anchor.x * scale) - (anchor.x - view.x);
+            int y = (int) Math.round(anchor.y * scale) - (anchor.y - view.y);
+            Dimension extent = viewport.getExtentSize();
+            x = Math.max(0, Math.min(x, getWidth() - extent.width));
+            y = Math.max(0, Math.min(y, getHeight() - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+        }
+        repaint();
+    }
+
+    /**
+     * Helper method: repaints the region of a dot.
+     *
+     * @param index The index (j*size+i) of the dot, or -1 for none.
+     */
+    private void repaintDot(int index) {
+        if (index != -1) {
+            int i = Cells.column(index, size);
+            int j = Cells.row(index, size);
+            repaint(margin() + shift(j) + i * cell, margin() + j * cell, cell, cell);
+        }
+    }
+
+    /**
+     * Helper method: returns the squared distance from a location of the
+     * canvas to the centre of a dot.
+     *
+     * @param index The index (j*size+i) of the dot.
+     * @param x The x coordinate in pixels.
+     * @param y The y coordinate in pixels.
+     */
+    private long distance(int index, int x, int y) {
+        int i = Cells.column(index, size);
+        int j = Cells.row(index, size);
+        long dx = x - (margin() + shift(j) + i * cell + cell / 2);
+        long dy = y - (margin() + j * cell + cell / 2);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Helper method: returns the margin around the dots, half a dot.
+     */
+    private int margin() {
+        return cell / 2;
+    }
+
+    /**
+     * Helper method: returns the shift of a row, the odd rows being shifted
+     * to the right by half a dot.
+     */
+    private int shift(int j) {
+        return (j % 2 == 0) ? 0 : cell / 2;
+    }
+
+}
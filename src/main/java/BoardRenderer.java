@@ -0,0 +1,27 @@
+/**
+ * The interface <b>BoardRenderer</b> for defining the views of the board
+ * used by <b>GameView</b>, i.e., <b>BoardView</b> and <b>BoardCanvas</b>.
+ * The renderers are only used on the Event Dispatch Thread.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public interface BoardRenderer {
+
+    /**
+     * Updates the view of the board based on a snapshot of the game.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param changes The dots changed since the last update.
+     */
+    void update(Snapshot snapshot, ChangeSet changes);
+
+    /**
+     * Highlights the dot suggested by a hint, and removes the previous hint.
+     *
+     * @param index The index (j*size+i) of the dot, or -1 to only remove the
+     *              previous hint.
+     */
+    void showHint(int index);
+
+}
@@ -7,13 +7,14 @@ import javax.swing.JPanel;
 /**
  * The class <b>BoardView</b> provides the current view of the board. It
  * extends the swing component <b>JPanel</b> and holds a two dimensional array
- * of <b>DotButton</b> instances.
+ * of <b>DotButton</b> instances. It renders immutable snapshots of the game,
+ * so it never reads the model, which is changed by the game thread.
  *
  * @author  Amr ElShafei
  * @version 2.0
  * @since   March 28th, 2016
  */
-public class BoardView extends JPanel {
+public class BoardView extends JPanel implements BoardRenderer {
 
 	/**
 	 * The version number of the serializable class associated by the
@@ -24,30 +25,33 @@ public class BoardView extends JPanel {
   	/** The two dimensional array of <b>DotButton</b> instances. */
 	private final DotButton[][] board;
 
- 	/** The reference to the game model. */
-    private final GameModel gameModel;
+ 	/** The size of the board. */
+    private final int size;
+
+ 	/** The index of the dot suggested by the last hint, or -1. */
+    private int hint = -1;
 
 	/**
      * The constructor for the custom swing component <b>BoardView</b>. It
-	 * initializes the board, stores a reference to the game model, and uses
+	 * initializes the board of a given size, and uses
 	 * the game controller as the action listener for the <b>DotButton</b>
 	 * instances.
      * 
-     * @param gameModel The model of the game.
+     * @param size The size of the board.
      * @param gameController the controller of the game.
      */
-    public BoardView(GameModel gameModel, GameController gameController) {
-    	// Storing a reference to the game model.
-    	this.gameModel = gameModel;
+    public BoardView(int size, GameController gameController) {
+    	// Storing the size of the board.
+    	this.size = size;
 
     	// Setting up the inherited JPanel properties.
 		setBackground(Color.WHITE);
-		setLayout(new GridLayout(gameModel.getSize(), 1));
+		setLayout(new GridLayout(size, 1));
 		setBorder(BorderFactory.createEmptyBorder(20,20,10,20));
 
 		// Setting up the board of DotButton instances.
-		board = new DotButton[gameModel.getSize()][gameModel.getSize()];
-		for (int row = 0; row < gameModel.getSize(); row++) {
+		board = new DotButton[size][size];
+		for (int row = 0; row < size; row++) {
 			JPanel panel = new JPanel();
 			if(row % 2 == 0) {
 				panel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 20));
@@ -57,7 +61,7 @@ public class BoardView extends JPanel {
 				panel.setLayout(new FlowLayout(FlowLayout.TRAILING,0,0));
 			}
 			panel.setBackground(Color.WHITE);
-		    for (int column = 0; column < gameModel.getSize(); column++) {
+		    for (int column = 0; column < size; column++) {
 				board[column][row] = new DotButton(row, column, GameModel.AVAILABLE);
 				board[column][row].addActionListener(gameController);
 				panel.add(board[column][row]);
@@ -69,15 +73,44 @@ public class BoardView extends JPanel {
 
  	/**
 	 * updates the status of the board's <b>DotButton</b> instances based on
-     * the current game model.
+     * a snapshot of the game. Only the changed dots are updated, and each
+     * one repaints itself, so the repaints are coalesced by Swing into a
+     * single paint of the changed region.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param changes The dots changed since the last update.
 	 */
-    public void update() {
-    	for(int i = 0; i < gameModel.getSize(); i++){
-		   	for(int j = 0; j < gameModel.getSize(); j++){
-		   		board[i][j].setType(gameModel.getCurrentStatus(i,j));
-		   	}
-		}
-		repaint();
+    public void update(Snapshot snapshot, ChangeSet changes) {
+    	if(changes.isAll()){
+    		for(int i = 0; i < size; i++){
+			   	for(int j = 0; j < size; j++){
+			   		board[i][j].setType(snapshot.getCurrentStatus(i,j));
+			   	}
+			}
+    	} else {
+    		for(int k = 0; k < changes.size(); k++){
+    			int i = changes.get(k) % size;
+    			int j = changes.get(k) / size;
+    			board[i][j].setType(snapshot.getCurrentStatus(i,j));
+    		}
+    	}
+		showHint(-1);
+    }
+
+ 	/**
+	 * Highlights the dot suggested by a hint, and removes the previous hint.
+	 *
+	 * @param index The index (j*size+i) of the dot, or -1 to only remove the
+	 *              previous hint.
+	 */
+    public void showHint(int index) {
+    	if(hint != -1){
+    		board[hint % size][hint / size].setHint(false);
+    	}
+    	hint = index;
+    	if(hint != -1){
+    		board[hint % size][hint / size].setHint(true);
+    	}
     }
 
 }
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>ChangeSet</b> holds the dots whose status has changed in a
+ * change of the game, so the views only update these dots. A move changes at
+ * most three dots: the selected dot, and the previous and next locations of
+ * the blue dot. A change of the whole board, e.g., a reset, is represented by
+ * <b>ChangeSet.ALL</b>. Change sets are immutable, and the changes that have
+ * not been rendered yet are merged with <b>union</b>.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class ChangeSet {
+
+    /** The change set of a change of the whole board. */
+    public static final ChangeSet ALL = new ChangeSet(null);
+
+    /** The change set of a change of no dot. */
+    public static final ChangeSet NONE = new ChangeSet(new int[0]);
+
+    /** The largest number of dots held before all the dots are changed. */
+    private static final int LIMIT = 256;
+
+    /** The distinct indices (j*size+i) of the changed dots, or null for all. */
+    private final int[] cells;
+
+    /**
+     * The constructor of the class <b>ChangeSet</b>.
+     */
+    private ChangeSet(int[] cells) {
+        this.cells = cells;
+    }
+
+    /**
+     * Creates the change set of some dots.
+     *
+     * @param cells The indices (j*size+i) of the changed dots. The indices
+     *              -1, e.g., of a blue dot that has exited the board, and the
+     *              duplicates are ignored.
+     * @return The change set.
+     */
+    public static ChangeSet of(int... cells) {
+        return NONE.with(cells);
+    }
+
+    /**
+     * Checks if the whole board has changed.
+     *
+     * @return true if all the dots have to be updated.
+     */
+    public boolean isAll() {
+        return cells == null;
+    }
+
+    /**
+     * An instance method for getting the number of changed dots.
+     *
+     * @return The number of changed dots.
+     * @throws IllegalStateException Thrown if the whole board has changed.
+     */
+    public int size() {
+        if (cells == null) {
+            throw new IllegalStateException("the whole board has changed");
+        }
+        return cells.length;
+    }
+
+    /**
+     * An instance method for getting a changed dot.
+     *
+     * @param k The number of the changed dot, from 0 to size()-1.
+     * @return The index (j*size+i) of the dot.
+     */
+    public int get(int k) {
+        return cells[k];
+    }
+
+    /**
+     * Merges two change sets.
+     *
+     * @param other The other change set.
+     * @return The change set of the dots changed in either change set.
+     */
+    public ChangeSet union(ChangeSet other) {
+        if (cells == null || other.cells == null) {
+            return ALL;
+        }
+        return with(other.cells);
+    }
+
+    /**
+     * Helper method: adds dots to this change set.
+     */
+    private ChangeSet with(int[] added) {
+        int[] result = Arrays.copyOf(cells, cells.length + added.length);
+        int count = cells.length;
+        for (int cell : added) {
+            if (cell != -1 && !contains(result, count, cell)) {
+                result[count++] = cell;
+            }
+        }
+        if (count > LIMIT) {
+            return ALL;
+        }
+        return new ChangeSet(count == result.length ? result : Arrays.copyOf(result, count));
+    }
+
+    /**
+     * Helper method: checks if the first dots of an array hold a dot.
+     */
+    private static boolean contains(int[] array, int count, int cell) {
+        for (int k = 0; k < count; k++) {
+            if (array[k] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return cells == null ? "ChangeSet[all]" : "ChangeSet" + Arrays.toString(cells);
+    }
+
+}
@@ -1,6 +1,8 @@
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 
 /**
  * The class <b>CircleTheDot</b> housing the main function that launches the
@@ -15,6 +17,9 @@ public class CircleTheDot {
     // The predefined value for the size of the game's board.
     private static final int DEFAULT_SIZE = 9;
 
+    /** The budget of the time to the first frame of the game, in milliseconds. */
+    public static final long FIRST_FRAME_BUDGET = 1000;
+
     /**
      * Return the location associated with the code source, i.e., the running
      * main program location.
@@ -35,17 +40,49 @@ public class CircleTheDot {
         }
     }
 
+    /**
+     * Reports the time from the start of the virtual machine to the first
+     * frame of the game, i.e., to the first paint of the board once the game
+     * is loaded. It is called once, on the Event Dispatch Thread. The time is
+     * printed if it is over the budget, or if the system property
+     * "ctd.startup" is set: to "report" to print it, or to "exit" to print it
+     * and exit, e.g., for the training run of the class-data sharing archive.
+     */
+    public static void firstFrame() {
+        long elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        String mode = System.getProperty("ctd.startup");
+        if (mode != null || elapsed > FIRST_FRAME_BUDGET) {
+            System.err.println("Time to first frame: " + elapsed + " ms (budget "
+                    + FIRST_FRAME_BUDGET + " ms)");
+        }
+        if ("exit".equals(mode)) {
+            System.exit(0);
+        }
+    }
+
     /**
      * The <b>main</b> function of the game. It creates the instance of
      * <b>GameController</b> and starts the game. If a game size is greater
      * than 4 the size is passed to the game controller and used as the board
-     * size. Otherwise, a default size is passed.
+     * size. Otherwise, a default size is passed. If the second argument is
+     * "field", the blue dot reads its moves from a distance field maintained
+     * by the model instead of searching on every move. The boards larger than
+     * GameView.LARGE_BOARD are shown on a canvas that scrolls and zooms
+     * (control + mouse wheel). If the first argument is "server", the game is
+     * hosted for remote clients by a <b>GameServer</b> instead, without any
+     * window.
      * 
-     * @param args Command line program arguments. $ java CircleTheDot _SIZE_
+     * @param args Command line program arguments. $ java CircleTheDot _SIZE_ [field]
+     *             or $ java CircleTheDot server [_PORT_ [_THREADS_ [_BUDGET_MB_]]]
+     * @throws IOException Thrown if the server cannot listen to its port.
      */
-     public static void main(String[] args) throws ClassNotFoundException, IOException {
+     public static void main(String[] args) throws IOException {
+        if (args.length >= 1 && args[0].equals("server")) {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         int size = DEFAULT_SIZE;
-        if (args.length == 1) {
+        if (args.length >= 1) {
             try {
                 size = Integer.parseInt(args[0]);
                 if(size < 4) {
@@ -58,7 +95,11 @@ public class CircleTheDot {
             }
         }
         
-        new GameController(size);
+        if (args.length >= 2 && args[1].equals("field")) {
+            new GameController(size, new FieldEscape());
+        } else {
+            new GameController(size);
+        }
     }
 
 }
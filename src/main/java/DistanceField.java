@@ -0,0 +1,322 @@
+import java.util.Arrays;
+import util.Topology;
+
+/**
+ * The class <b>DistanceField</b> holds, for every dot of a <b>GameModel</b>,
+ * the number of steps needed to reach the border of the board through dots
+ * that are not selected. It is computed by a single ``breadth-first'' search
+ * seeded from all the border dots that are not selected, so the next step of
+ * the blue dot is the neighbour with the smallest distance.
+ *
+ * The blue dot itself does not block the field: a shortest path never goes
+ * back through the dot it starts from, so the neighbour with the smallest
+ * distance is the same either way, and moving the blue dot does not change
+ * the field.
+ *
+ * The field is maintained incrementally: selecting a dot only repairs the
+ * dots whose every shortest path to the border went through it, and
+ * unselecting a dot (undo/redo) only relaxes the dots that get closer to the
+ * border. The work done per move is proportional to the changed region
+ * rather than to the area of the board.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class DistanceField {
+
+    /** The distance of a dot that cannot reach the border. */
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    /** The model the field is computed for. */
+    private final GameModel gameModel;
+
+    /** The size of the board. */
+    private final int size;
+
+    /** The neighbours and the border of the dots. */
+    private final Topology topology;
+
+    /** The distance to the border of every dot, indexed by j*size+i. */
+    private final int[] distance;
+
+    /** The preallocated queue of the search. */
+    private final int[] queue;
+
+    /** The dots whose distance is repaired after a dot is selected. */
+    private final int[] affected;
+
+    /**
+     * The dots of the repaired region that have a distance through the rest
+     * of the board, packed as (distance &lt;&lt; 32 | index) to be sorted.
+     */
+    private final long[] seeds;
+
+    /** The generation in which each dot was last queued by a repair. */
+    private final int[] queued;
+
+    /** The generation in which each dot was last found affected by a repair. */
+    private final int[] lost;
+
+    /** The generation of the current repair. */
+    private int generation;
+
+
+    /** True if the field must be computed again before being read. */
+    private boolean dirty;
+
+    /**
+     * The constructor of the class <b>DistanceField</b>. The field is
+     * computed the first time it is read.
+     *
+     * @param gameModel The model the field is computed for.
+     */
+    DistanceField(GameModel gameModel) {
+        this.gameModel = gameModel;
+        this.size = gameModel.getSize();
+        this.topology = gameModel.getTopology();
+        this.distance = new int[size * size];
+        this.queue = new int[size * size];
+        this.affected = new int[size * size];
+        this.seeds = new long[size * size];
+        this.queued = new int[size * size];
+        this.lost = new int[size * size];
+        this.dirty = true;
+    }
+
+    /**
+     * Returns the number of steps needed by a dot to reach the border.
+     *
+     * @param index The index (j*size+i) of the dot.
+     * @return the distance to the border, or INFINITY if the border cannot
+     *         be reached.
+     */
+    public int getDistance(int index) {
+        update();
+        return distance[index];
+    }
+
+    /**
+     * Marks the field to be computed again, after the selected dots of the
+     * model changed.
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Repairs the field after a dot has been selected. Only the dots that
+     * lost all their neighbours one step closer to the border are computed
+     * again, in increasing order of their new distance.
+     *
+     * @param index The index of the dot that has been selected.
+     */
+    void block(int index) {
+        if (dirty || distance[index] == INFINITY) {
+            return;
+        }
+        nextGeneration();
+        distance[index] = INFINITY;
+
+        // finds the dots that lost their support, level by level
+        int head = 0;
+        int tail = 0;
+        for (int slot = topology.start(index); slot < topology.end(index); slot++) {
+            int n = topology.neighbour(slot);
+            if (queued[n] != generation) {
+                queued[n] = generation;
+                queue[tail++] = n;
+            }
+        }
+        int region = 0;
+        while (head < tail) {
+            int u = queue[head++];
+            if (distance[u] == 0 || distance[u] == INFINITY || isSelected(u) || hasSupport(u)) {
+                continue;
+            }
+            lost[u] = generation;
+            affected[region++] = u;
+            for (int slot = topology.start(u); slot < topology.end(u); slot++) {
+                int n = topology.neighbour(slot);
+                if (queued[n] != generation && distance[n] == distance[u] + 1) {
+                    queued[n] = generation;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        if (region == 0) {
+            return;
+        }
+
+        // seeds the region from its boundary with the rest of the board
+        for (int a = 0; a < region; a++) {
+            distance[affected[a]] = INFINITY;
+        }
+        int seedCount = 0;
+        for (int a = 0; a < region; a++) {
+            int u = affected[a];
+            int best = INFINITY;
+            for (int slot = topology.start(u); slot < topology.end(u); slot++) {
+                int n = topology.neighbour(slot);
+                if (lost[n] != generation && distance[n] < best && !isSelected(n)) {
+                    best = distance[n];
+                }
+            }
+            if (best != INFINITY) {
+                distance[u] = best + 1;
+                seeds[seedCount++] = ((long) (best + 1) << 32) | u;
+            }
+        }
+        Arrays.sort(seeds, 0, seedCount);
+
+        // merges the sorted seeds with the queue of the search
+        head = 0;
+        tail = 0;
+        int next = 0;
+        while (next < seedCount || head < tail) {
+            int u;
+            if (head == tail || (next < seedCount
+                    && (int) (seeds[next] >>> 32) <= distance[queue[head]])) {
+                u = (int) seeds[next];
+                if ((int) (seeds[next++] >>> 32) != distance[u]) {
+                    continue; // the dot has been reached by a shorter path
+                }
+            } else {
+                u = queue[head++];
+            }
+            for (int slot = topology.start(u); slot < topology.end(u); slot++) {
+                int n = topology.neighbour(slot);
+                if (lost[n] == generation && distance[n] > distance[u] + 1) {
+                    distance[n] = distance[u] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Repairs the field after a dot has been unselected, e.g., on undo. Only
+     * the dots that get closer to the border through that dot are updated.
+     *
+     * @param index The index of the dot that has been unselected.
+     */
+    void unblock(int index) {
+        if (dirty) {
+            return;
+        }
+        int best = INFINITY;
+        if (isOnBorder(index)) {
+            best = 0;
+        } else {
+            for (int slot = topology.start(index); slot < topology.end(index); slot++) {
+                int n = topology.neighbour(slot);
+                if (distance[n] != INFINITY && distance[n] + 1 < best && !isSelected(n)) {
+                    best = distance[n] + 1;
+                }
+            }
+        }
+        distance[index] = best;
+        if (best == INFINITY) {
+            return;
+        }
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = index;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int slot = topology.start(u); slot < topology.end(u); slot++) {
+                int n = topology.neighbour(slot);
+                if (distance[n] > distance[u] + 1 && !isSelected(n)) {
+                    distance[n] = distance[u] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method: checks if a dot still has a neighbour one step closer
+     * to the border that is not selected nor affected by the current repair.
+     *
+     * @param index The index of the dot.
+     * @return true iff the distance of the dot is unchanged.
+     */
+    private boolean hasSupport(int index) {
+        for (int slot = topology.start(index); slot < topology.end(index); slot++) {
+            int n = topology.neighbour(slot);
+            if (distance[n] == distance[index] - 1 && lost[n] != generation
+                    && !isSelected(n)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method: starts a new generation of repair marks, clearing the
+     * marks only when the generation counter wraps around.
+     */
+    private void nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(queued, 0);
+            Arrays.fill(lost, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Helper method: checks if a dot is selected in the model.
+     *
+     * @param index The index of the dot.
+     * @return true iff the dot is selected.
+     */
+    private boolean isSelected(int index) {
+        return gameModel.getSelected().get(index);
+    }
+
+    /**
+     * Helper method: computes the field again if it is marked dirty.
+     */
+    private void update() {
+        if (dirty) {
+            compute();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Helper method: runs the multi-source ``breadth-first'' search from all
+     * the border dots that are not selected.
+     */
+    private void compute() {
+        Arrays.fill(distance, INFINITY);
+        int head = 0;
+        int tail = 0;
+        for (int index = 0; index < distance.length; index++) {
+            if (isOnBorder(index) && !isSelected(index)) {
+                distance[index] = 0;
+                queue[tail++] = index;
+            }
+        }
+        while (head < tail) {
+            int index = queue[head++];
+            for (int slot = topology.start(index); slot < topology.end(index); slot++) {
+                int n = topology.neighbour(slot);
+                if (distance[n] == INFINITY && !isSelected(n)) {
+                    distance[n] = distance[index] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method: checks if a dot is on the border of the board.
+     *
+     * @param index The index of the dot.
+     * @return true iff the dot is on the border of the board.
+     */
+    private boolean isOnBorder(int index) {
+        return topology.isOnBorder(index);
+    }
+
+}
@@ -0,0 +1,246 @@
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+
+/**
+ * The class <b>DotAtlas</b> holds the images of the dots, scaled once rather
+ * than on every paint. The images of the three states of a dot are drawn side
+ * by side on a sheet, one sheet per size in pixels, and a dot is painted by
+ * copying its part of the sheet. The sheets are images compatible with the
+ * screen, so Java2D can keep them in video memory and copy them without
+ * converting them.
+ *
+ * The sheets of a dot of <b>SIZE</b> pixels at the usual scale factors of the
+ * screens are built when the atlas is created, and the other sizes, e.g., of
+ * the zoom levels of <b>BoardCanvas</b>, the first time they are painted. A
+ * dot is always painted from the sheet of its size in device pixels, so it
+ * is never scaled on HiDPI screens.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class DotAtlas {
+
+    /** The size in pixels of a dot of <b>BoardView</b>. */
+    public static final int SIZE = 40;
+
+    /** The number of states of a dot, i.e., of images on a sheet. */
+    private static final int NUM_STATES = 3;
+
+    /** The scale factors of the screens the sheets are built for at start. */
+    private static final double[] SCALES = {1, 1.25, 1.5, 2};
+
+    /** The atlas, created the first time it is used. */
+    private static volatile DotAtlas atlas;
+
+    /** The images of the resources, indexed by state. */
+    private final BufferedImage[] sources = new BufferedImage[NUM_STATES];
+
+    /** The sheets, by size in pixels of a dot. */
+    private final Map<Integer, Sheet> sheets = new ConcurrentHashMap<>();
+
+    /** The icons of the dots of <b>BoardView</b>, indexed by state. */
+    private final Icon[] icons = new Icon[NUM_STATES];
+
+    /** The configuration of the screen, or null if there is no screen. */
+    private final GraphicsConfiguration configuration;
+
+    /**
+     * The class <b>Sheet</b> holds the images of the three states of a dot
+     * at one size in device pixels.
+     */
+    public static final class Sheet {
+
+        /** The images of the states, side by side. */
+        private final BufferedImage image;
+
+        /** The size in device pixels of a dot. */
+        private final int pixels;
+
+        /**
+         * The constructor of the class <b>Sheet</b>.
+         */
+        private Sheet(BufferedImage image, int pixels) {
+            this.image = image;
+            this.pixels = pixels;
+        }
+
+        /**
+         * Paints a dot.
+         *
+         * @param g The graphics to paint on.
+         * @param type The state of the dot.
+         * @param x The x coordinate of the dot.
+         * @param y The y coordinate of the dot.
+         * @param size The size of the dot, in the coordinates of the graphics.
+         */
+        public void draw(Graphics g, int type, int x, int y, int size) {
+            g.drawImage(image, x, y, x + size, y + size,
+                    type * pixels, 0, (type + 1) * pixels, pixels, null);
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>DotAtlas</b>. It loads the images and
+     * builds the sheets of a dot of <b>BoardView</b>.
+     */
+    private DotAtlas() {
+        configuration = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                        .getDefaultConfiguration();
+        for (int type = 0; type < NUM_STATES; type++) {
+            sources[type] = load(type);
+            icons[type] = new DotIcon(type);
+        }
+        for (double scale : SCALES) {
+            sheet((int) Math.round(SIZE * scale));
+        }
+    }
+
+    /**
+     * Returns the atlas, creating it the first time.
+     *
+     * @return The atlas of the dots.
+     */
+    public static DotAtlas get() {
+        if (atlas == null) {
+            synchronized (DotAtlas.class) {
+                if (atlas == null) {
+                    atlas = new DotAtlas();
+                }
+            }
+        }
+        return atlas;
+    }
+
+    /**
+     * Returns the icon of a dot of <b>BoardView</b>. The icons are shared by
+     * all the dots of the same state.
+     *
+     * @param type The state of the dot.
+     * @return The icon of the dot.
+     */
+    public Icon icon(int type) {
+        return icons[type];
+    }
+
+    /**
+     * Returns the sheet to paint dots of a given size on a graphics, i.e.,
+     * the sheet of that size in the device pixels of the graphics.
+     *
+     * @param g The graphics to paint on.
+     * @param size The size of the dots, in the coordinates of the graphics.
+     * @return The sheet of the dots.
+     */
+    public Sheet sheet(Graphics g, int size) {
+        double scale = g instanceof Graphics2D ? ((Graphics2D) g).getTransform().getScaleX() : 1;
+        return sheet(Math.max(1, (int) Math.round(size * scale)));
+    }
+
+    /**
+     * Returns the sheet of dots of a given size in pixels, building it the
+     * first time.
+     *
+     * @param pixels The size in pixels of a dot.
+     * @return The sheet of the dots.
+     */
+    public Sheet sheet(int pixels) {
+        return sheets.computeIfAbsent(pixels, this::build);
+    }
+
+    /**
+     * Helper method: builds the sheet of dots of a given size in pixels.
+     */
+    private Sheet build(int pixels) {
+        BufferedImage image = configuration == null
+                ? new BufferedImage(NUM_STATES * pixels, pixels, BufferedImage.TYPE_INT_ARGB_PRE)
+                : configuration.createCompatibleImage(NUM_STATES * pixels, pixels, Transparency.TRANSLUCENT);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        for (int type = 0; type < NUM_STATES; type++) {
+            g.drawImage(shrink(sources[type], pixels), type * pixels, 0, pixels, pixels, null);
+        }
+        g.dispose();
+        return new Sheet(image, pixels);
+    }
+
+    /**
+     * Helper method: halves an image until it is at most twice a given size,
+     * as a single bilinear scaling to a much smaller size skips most of the
+     * pixels of the image.
+     */
+    private static BufferedImage shrink(BufferedImage image, int pixels) {
+        while (image.getWidth() > 2 * pixels) {
+            int width = image.getWidth() / 2;
+            int height = image.getHeight() / 2;
+            BufferedImage half = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = half.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+            g.dispose();
+            image = half;
+        }
+        return image;
+    }
+
+    /**
+     * Helper method: loads the image of a state of a dot.
+     */
+    private static BufferedImage load(int type) {
+        try (InputStream in = DotAtlas.class.getResourceAsStream("/dot_" + type + ".png")) {
+            if (in == null) {
+                throw new IOException("missing resource /dot_" + type + ".png");
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read the image of the dot " + type, e);
+        }
+    }
+
+    /**
+     * The class <b>DotIcon</b> is the icon of a dot of <b>BoardView</b>. It
+     * paints the dot from the sheet of its size on the screen.
+     */
+    private final class DotIcon implements Icon {
+
+        /** The state of the dot. */
+        private final int type;
+
+        /**
+         * The constructor of the class <b>DotIcon</b>.
+         */
+        private DotIcon(int type) {
+            this.type = type;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            sheet(g, SIZE).draw(g, type, x, y, SIZE);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return SIZE;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return SIZE;
+        }
+
+    }
+
+}
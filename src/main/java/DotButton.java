@@ -1,14 +1,14 @@
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.BorderFactory;
 import javax.swing.border.Border;
-import java.awt.Image;
 import java.awt.Color;
 
 /**
  * The class <b>DotButton</b> represents a dot in the game's <b>Board</b>
  * instance. It extends the swing component <b>JButton</b> and uses different
- * icons to visually reflect the state of the dot. A blue icon is displayed if
+ * icons to visually reflect the state of the dot. The icons are shared by all
+ * the dots of the same state, and painted from the pre-scaled images of
+ * <b>DotAtlas</b>. A blue icon is displayed if
  * the location of the dot is the current location of the blue dot. An orange
  * icon is displayed if the dot has been selected. Otherwise, a grey icon is
  * displayed.
@@ -25,16 +25,6 @@ public class DotButton extends JButton {
      */
     private static final long serialVersionUID = -2393278252444838901L;
 
-    /** The Number of colours representing the different states of a dot. */
-    private static final int NUM_STATES = 3;
-
-    /**
-     * An array is used to cache all the icons. Since the icons are not
-     * modified, all the cells that display the same image reuse the same
-     * <b>ImageIcon</b> object.
-     */
-    private static final ImageIcon[] icons = new ImageIcon[NUM_STATES];
-
     /** The row number of the dot on a <b>Board</b> instance. */
     private final int row;
 
@@ -64,7 +54,7 @@ public class DotButton extends JButton {
 
         // Setting up the inherited JButton properties.
     	setBackground(Color.WHITE);
-    	setIcon(getImageIcon());
+    	setIcon(DotAtlas.get().icon(type));
     	Border emptyBorder = BorderFactory.createEmptyBorder(0, 0, 0, 0);
     	setBorder(emptyBorder);
     	setBorderPainted(false);
@@ -72,28 +62,26 @@ public class DotButton extends JButton {
     }
 
     /**
-     * Determines the icon to use based on the dot's state. This method is
-     * implemented on the caching mechanism.
+     * Shows or hides the hint around the dot, i.e., a green background.
      * 
-     * @return the icon to be displayed by the <b>DotButton</b>.
+     * @param hint True if the dot is the suggested one.
      */
-    private ImageIcon getImageIcon() {
-    	if (icons[type] == null) {
-    	    ImageIcon icon = new ImageIcon(getClass().getResource("/dot_" + type + ".png"));
-            ImageIcon scaled = new ImageIcon(icon.getImage().getScaledInstance(40, 40,  Image.SCALE_SMOOTH));
-    	    icons[type] = scaled;
-    	}
-    	return icons[type];
+    public void setHint(boolean hint) {
+    	setBackground(hint ? Color.GREEN : Color.WHITE);
     }
 
     /**
      * Changes the state of the dot while changing the icon accordingly.
+     * Nothing happens if the state is unchanged.
      * 
      * @param type The state of the dot.
      */
     public void setType(int type) {
+    	if (this.type == type) {
+    		return;
+    	}
     	this.type = type;
-    	setIcon(getImageIcon());
+    	setIcon(DotAtlas.get().icon(type));
     }
  
     /**
@@ -0,0 +1,195 @@
+import java.util.Random;
+import util.BitBoard;
+import util.Topology;
+import util.Util;
+
+/**
+ * The class <b>EscapeSearch</b> is a reusable ``breadth-first'' search engine
+ * that finds the next step of the blue dot toward the border of the board. It
+ * works over flat cell indices (<code>y * size + x</code>) and keeps all of its
+ * working memory between queries: a preallocated ring-buffer frontier, the
+ * first step taken to reach each queued cell, and a bit set of the closed
+ * cells. Once warmed up for a board size, a query allocates nothing.
+ *
+ * The closed cells are seeded with the words of the selected dots of the
+ * model, then the visited cells are added, so a neighbour is checked for
+ * both with a single mask of one word.
+ *
+ * Unless a random generator is given, the ties between the first steps are
+ * broken with the turn seed of the model, so replaying the same moves on the
+ * board of the same seed moves the blue dot the same way.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class EscapeSearch implements EscapeStrategy {
+
+    /**
+     * The random generator used to shuffle the first step candidates, or null
+     * to shuffle them with the turn seed of the model.
+     */
+    private final Random generator;
+
+    /** The size of the board the buffers are currently allocated for. */
+    private int size;
+
+    /** The shared topology of the boards of that size. */
+    private Topology topology;
+
+    /** The ring-buffer frontier of cell indices. */
+    private int[] frontier;
+
+    /** The first step (as a cell index) taken to reach each queued cell. */
+    private int[] origin;
+
+    /**
+     * The cells that cannot be added to the frontier, i.e., the selected dots
+     * and the cells visited by the current query, the bit of a cell being
+     * stored in the word cell / 64, as in <b>BitBoard</b>.
+     */
+    private long[] closed;
+
+    /** The scratch array holding the shuffled neighbours of the blue dot. */
+    private final int[] firstSteps = new int[6];
+
+    /**
+     * The constructor of the class <b>EscapeSearch</b>.
+     */
+    public EscapeSearch() {
+        this(null);
+    }
+
+    /**
+     * The constructor of the class <b>EscapeSearch</b>.
+     *
+     * @param generator The random generator used to shuffle the first steps,
+     *                  or null to use the turn seed of the model.
+     */
+    public EscapeSearch(Random generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Does a ``breadth-first'' search from the current location of the blue
+     * dot to find one of the shortest available paths to exit the board. The
+     * neighbours of the blue dot are explored in a random order, which adds
+     * some non determinism into the game.
+     *
+     * @param gameModel The model of the game.
+     * @return the cell index of the next step for the blue dot toward the
+     * exit, or <b>NONE</b> if the blue dot is encircled and cannot exit.
+     */
+    @Override
+    public int findDirection(GameModel gameModel) {
+        ensureCapacity(gameModel.getSize());
+        BitBoard selected = gameModel.getSelected();
+        for (int w = 0; w < closed.length; w++) {
+            closed[w] = selected.word(w);
+        }
+
+        int dot = gameModel.getCurrentIndex();
+        close(dot);
+
+        // start with neighbours of the current dot
+        // (note: we know the current dot isn't on the border)
+        int count = 0;
+        for (int slot = topology.start(dot); slot < topology.end(dot); slot++) {
+            int n = topology.neighbour(slot);
+            if (isOpen(n)) {
+                firstSteps[count++] = n;
+            }
+        }
+        shuffle(gameModel, count);
+
+        int head = 0;
+        int length = 0;
+        for (int k = 0; k < count; k++) {
+            int n = firstSteps[k];
+            if (topology.isOnBorder(n)) {
+                return n;
+            }
+            close(n);
+            int tail = (head + length++) % frontier.length;
+            frontier[tail] = n;
+            origin[tail] = n;
+        }
+
+        // start the search
+        while (length > 0) {
+            int cell = frontier[head];
+            int first = origin[head];
+            head = (head + 1) % frontier.length;
+            length--;
+
+            for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                int n = topology.neighbour(slot);
+                if (isOpen(n)) {
+                    if (topology.isOnBorder(n)) {
+                        return first;
+                    }
+                    close(n);
+                    int tail = (head + length++) % frontier.length;
+                    frontier[tail] = n;
+                    origin[tail] = first;
+                }
+            }
+        }
+
+        // could not find a way out
+        return NONE;
+    }
+
+    /**
+     * Helper method: (re)allocates the buffers if the board size changed.
+     *
+     * @param size The size of the board.
+     */
+    private void ensureCapacity(int size) {
+        if (this.size != size) {
+            this.size = size;
+            topology = Topology.of(size);
+            frontier = new int[size * size];
+            origin = new int[size * size];
+            closed = new long[(size * size + 63) >>> 6];
+        }
+    }
+
+    /**
+     * Helper method: shuffles the first <b>count</b> candidate first steps.
+     *
+     * @param gameModel The model of the game.
+     * @param count The number of candidates.
+     */
+    private void shuffle(GameModel gameModel, int count) {
+        long turn = (generator == null) ? gameModel.getTurnSeed() : 0;
+        for (int i = count - 1; i > 0; i--) {
+            int j = (generator == null)
+                    ? (int) Long.remainderUnsigned(Util.mix64(turn + i), i + 1)
+                    : generator.nextInt(i + 1);
+            int tmp = firstSteps[i];
+            firstSteps[i] = firstSteps[j];
+            firstSteps[j] = tmp;
+        }
+    }
+
+    /**
+     * Helper method: checks if a cell is neither selected nor visited during
+     * the current query, against the mask of its word.
+     *
+     * @param cell The cell index.
+     * @return true iff the cell can be added to the frontier.
+     */
+    private boolean isOpen(int cell) {
+        return (closed[cell >>> 6] & (1L << cell)) == 0;
+    }
+
+    /**
+     * Helper method: marks a cell as visited during the current query.
+     *
+     * @param cell The cell index.
+     */
+    private void close(int cell) {
+        closed[cell >>> 6] |= 1L << cell;
+    }
+
+}
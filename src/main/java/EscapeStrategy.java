@@ -0,0 +1,23 @@
+/**
+ * The interface <b>EscapeStrategy</b> for defining how the blue dot chooses
+ * its next step toward the border of the board.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public interface EscapeStrategy {
+
+    /** The returned value when the blue dot is encircled and cannot exit. */
+    int NONE = -1;
+
+    /**
+     * Finds the next step of the blue dot on one of the shortest available
+     * paths to exit the board. The current dot is known not to be on the
+     * border.
+     * @param gameModel The model of the game.
+     * @return the index (j*size+i) of the next step, or NONE if the blue dot
+     *         is encircled and cannot exit.
+     */
+    int findDirection(GameModel gameModel);
+
+}
@@ -0,0 +1,92 @@
+import java.util.Random;
+import util.Topology;
+import util.Util;
+
+/**
+ * The class <b>FieldEscape</b> moves the blue dot by reading the
+ * <b>DistanceField</b> maintained by the model: the next step is the
+ * available neighbour of the blue dot with the smallest distance to the
+ * border, ties being broken at random. Instead of searching from the blue
+ * dot on every move, the pathfinding is a lookup of six distances.
+ *
+ * Unless a random generator is given, the ties are broken with the turn seed
+ * of the model, so replaying the same moves on the board of the same seed
+ * moves the blue dot the same way.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class FieldEscape implements EscapeStrategy {
+
+    /**
+     * The random generator used to break ties between neighbours, or null to
+     * break them with the turn seed of the model.
+     */
+    private final Random generator;
+
+    /**
+     * The constructor of the class <b>FieldEscape</b>.
+     */
+    public FieldEscape() {
+        this(null);
+    }
+
+    /**
+     * The constructor of the class <b>FieldEscape</b>.
+     *
+     * @param generator The random generator used to break ties, or null to
+     *                  use the turn seed of the model.
+     */
+    public FieldEscape(Random generator) {
+        this.generator = generator;
+    }
+
+    @Override
+    public int findDirection(GameModel gameModel) {
+        DistanceField field = gameModel.getDistanceField();
+        Topology topology = gameModel.getTopology();
+        int dot = gameModel.getCurrentIndex();
+        long turn = (generator == null) ? gameModel.getTurnSeed() : 0;
+
+        int best = NONE;
+        int bestDistance = DistanceField.INFINITY;
+        int ties = 0;
+        int start = topology.start(dot);
+        for (int k = 0; k < topology.end(dot) - start; k++) {
+            int n = topology.neighbour(start + k);
+            if (!gameModel.isAvailable(n)) {
+                continue;
+            }
+            int distance = field.getDistance(n);
+            if (distance == DistanceField.INFINITY || distance > bestDistance) {
+                continue;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = n;
+                ties = 1;
+            } else if (pick(turn, k, ++ties) == 0) {
+                // keeps each of the tied neighbours with the same probability
+                best = n;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Helper method: draws a number between 0 and bound - 1.
+     *
+     * @param turn The turn seed of the model.
+     * @param k The number of the neighbour.
+     * @param bound The bound of the number.
+     * @return the number, from the random generator if any, or else from the
+     * turn seed.
+     */
+    private int pick(long turn, int k, int bound) {
+        if (generator != null) {
+            return generator.nextInt(bound);
+        }
+        return (int) Long.remainderUnsigned(Util.mix64(turn + k), bound);
+    }
+
+}
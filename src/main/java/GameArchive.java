@@ -0,0 +1,255 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class <b>GameArchive</b> is an append-only archive of finished games.
+ * It is made of two files:
+ *
+ * - the data file holds one record per game: the start of the game, as
+ *   written by <b>LineOfPlay</b>, the status at the end of the game, its
+ *   number of moves and its moves, as written by <b>LineOfPlay</b>;
+ * - the index file holds one entry of 16 bytes per game (offset and length
+ *   of the record, number of moves), so the game of a given ID, its number
+ *   in the archive, is located without reading the data file.
+ *
+ * Records are read through a <b>MappedByteBuffer</b> of their region of the
+ * data file, and a <b>Replay</b> streams the moves of a game into a
+ * <b>GameModel</b> without loading the record on the heap.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class GameArchive implements Closeable {
+
+    /** The length of an entry of the index, in bytes. */
+    private static final int ENTRY = 8 + 4 + 4;
+
+    /** The length of a record after the start of its game, moves excluded. */
+    private static final int TRAILER = 4 + 4;
+
+    /** The channel of the data file. */
+    private final FileChannel data;
+
+    /** The channel of the index file. */
+    private final FileChannel index;
+
+    /**
+     * The class <b>Replay</b> streams the moves of an archived game.
+     */
+    public static class Replay {
+
+        /** The mapped record of the game, positioned on the next move. */
+        private final ByteBuffer record;
+
+        /** The size of the board. */
+        private final int size;
+
+        /** The status of the game at its end. */
+        private final int status;
+
+        /** The number of moves of the game. */
+        private final int moves;
+
+        /** The number of moves already streamed. */
+        private int played;
+
+        /**
+         * The constructor of the class <b>Replay</b>.
+         *
+         * @param record The mapped record of the game.
+         */
+        private Replay(ByteBuffer record) {
+            this.record = record;
+            this.size = LineOfPlay.skipStart(record);
+            this.status = record.getInt();
+            this.moves = record.getInt();
+        }
+
+        /**
+         * Creates the model of the game at its start. The selected dots are
+         * read from the record, or generated from the seed. It can be called
+         * at any time, and does not move the stream of the moves.
+         *
+         * @return The model of the game before its first move.
+         */
+        public GameModel start() {
+            ByteBuffer start = record.duplicate();
+            start.position(0);
+            return LineOfPlay.getStart(start);
+        }
+
+        /**
+         * Checks if there are moves left to stream.
+         *
+         * @return true if next() can be called.
+         */
+        public boolean hasNext() {
+            return played < moves;
+        }
+
+        /**
+         * Plays the next move of the game on a model, through its select
+         * and setCurrentDot methods.
+         *
+         * @param gameModel The model of the game, as returned by start().
+         */
+        public void next(GameModel gameModel) {
+            int selected = record.getInt();
+            int dot = record.getInt();
+            record.get(); // the status after the move
+            played++;
+            gameModel.select(selected % size, selected / size);
+            if (dot == -1) {
+                gameModel.setCurrentDot(-1, -1);
+            } else {
+                gameModel.setCurrentDot(dot % size, dot / size);
+            }
+        }
+
+        /**
+         * An instance method for getting the size of the board.
+         *
+         * @return The size of the board.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * An instance method for getting the number of moves of the game.
+         *
+         * @return The number of moves.
+         */
+        public int getMoves() {
+            return moves;
+        }
+
+        /**
+         * An instance method for getting the status at the end of the game.
+         *
+         * @return PLAYING, WON or LOST, as defined by <b>GameEngine</b>.
+         */
+        public int getStatus() {
+            return status;
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>GameArchive</b>. It opens, or creates,
+     * the files name.dat and name.idx.
+     *
+     * @param name The path of the archive, without extension.
+     * @throws IOException Thrown if the files cannot be opened.
+     */
+    public GameArchive(File name) throws IOException {
+        data = FileChannel.open(new File(name.getPath() + ".dat").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(new File(name.getPath() + ".idx").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Appends a game to the archive. The game is described by the snapshot
+     * of its last move, whose parents lead to the start of the game.
+     *
+     * @param last The snapshot of the last move of the game.
+     * @return The ID of the game in the archive.
+     * @throws IOException Thrown if the files cannot be written.
+     */
+    public synchronized long append(Snapshot last) throws IOException {
+        List<Snapshot> line = new ArrayList<>();
+        for (Snapshot s = last; s != null; s = s.getParent()) {
+            line.add(s);
+        }
+        Collections.reverse(line);
+        Snapshot first = line.get(0);
+        int moves = line.size() - 1;
+
+        ByteBuffer record = ByteBuffer.allocate(LineOfPlay.length(first, moves) + TRAILER);
+        LineOfPlay.putStart(record, first);
+        record.putInt(last.getStatus());
+        record.putInt(moves);
+        LineOfPlay.putMoves(record, line);
+        record.flip();
+
+        long offset = data.size();
+        long id = index.size() / ENTRY;
+        LineOfPlay.writeFully(data, record, offset);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY);
+        entry.putLong(offset);
+        entry.putInt(record.capacity());
+        entry.putInt(moves);
+        entry.flip();
+        LineOfPlay.writeFully(index, entry, id * ENTRY);
+        return id;
+    }
+
+    /**
+     * Returns the number of games in the archive.
+     *
+     * @return The number of games.
+     * @throws IOException Thrown if the index cannot be read.
+     */
+    public long size() throws IOException {
+        return index.size() / ENTRY;
+    }
+
+    /**
+     * Returns the number of moves of a game, read from the index only.
+     *
+     * @param id The ID of the game.
+     * @return The number of moves.
+     * @throws IOException Thrown if the index cannot be read.
+     */
+    public int getMoves(long id) throws IOException {
+        return entry(id).getInt(12);
+    }
+
+    /**
+     * Opens the replay of a game. The record of the game is mapped, not
+     * read, so only the pages that are streamed are loaded.
+     *
+     * @param id The ID of the game.
+     * @return The replay of the game.
+     * @throws IOException Thrown if the files cannot be read.
+     */
+    public Replay replay(long id) throws IOException {
+        ByteBuffer entry = entry(id);
+        MappedByteBuffer record = data.map(FileChannel.MapMode.READ_ONLY,
+                entry.getLong(0), entry.getInt(8));
+        return new Replay(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Helper method: maps the entry of a game in the index.
+     *
+     * @param id The ID of the game.
+     * @return The entry.
+     * @throws IOException Thrown if the index cannot be read.
+     */
+    private ByteBuffer entry(long id) throws IOException {
+        if (id < 0 || id >= size()) {
+            throw new IllegalArgumentException("No game of ID " + id);
+        }
+        return index.map(FileChannel.MapMode.READ_ONLY, id * ENTRY, ENTRY);
+    }
+
+}
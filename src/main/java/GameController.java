@@ -1,42 +1,56 @@
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.net.URISyntaxException;
-import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.JButton;
 import javax.swing.JOptionPane;
-import util.EmptyStackException;
-import util.LinkedQueue;
-import util.LinkedStack;
-import util.Pair;
-import util.Point;
-import util.Queue;
+import javax.swing.SwingUtilities;
 
 /**
  * The class <b>GameController</b> is the controller of the game. It implements 
- * the interface ActionListener to be called back when the player makes a move. It computes
- * the next step of the game, and then updates model and view.
+ * the interface ActionListener to be called back when the player makes a move. It
+ * passes the moves to the game's engine, which computes the next step of the game,
+ * and asks the player to play again once the game is over.
+ *
+ * The game runs on a single game thread, off the Event Dispatch Thread: the
+ * clicks only queue their moves to the game thread, which applies them one
+ * after the other, so a click made while the blue dot is still moving is
+ * played next rather than lost, and the interface never waits for the blue
+ * dot whatever the size of the board. The view renders snapshots of the game
+ * taken by the game thread, and the dialogs are shown on the Event Dispatch
+ * Thread.
+ *
+ * The game starts concurrently: the model is loaded, or generated, by the
+ * game thread, the images of the dots are decoded by another thread, and the
+ * view is built and shown by the Event Dispatch Thread meanwhile. The view
+ * only needs the size of the board, which is read from the header of the
+ * save, if any.
  *
  * @author Guy-Vincent Jourdan, University of Ottawa
  */
 public class GameController implements ActionListener {
 
-    /** The reference to the game's view. */
-    private final GameView gameView;
+    /** The reference to the game's view, set by the game thread. */
+    private GameView gameView;
 
-    /** The reference to the game's model. */
+    /** The reference to the game's model, set by the game thread. */
     private GameModel gameModel;
 
-    /** The undo stack that holds all the undo-able states of the game. */
-	private final LinkedStack<GameModel> undoStack;
+    /** The reference to the game's engine, set by the game thread. */
+    private GameEngine gameEngine;
 
+    /** The service computing the hints in the background. */
+    private final HintService hintService = new HintService();
 
-    /** The redo stack that holds all the redo-able states of the game. */
-    private final LinkedStack<GameModel> redoStack;
+    /** The game thread, the only one using the engine and the model. */
+    private final ExecutorService gameThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "game");
+        thread.setDaemon(true);
+        return thread;
+    });
 	
 	
     /**
@@ -46,305 +60,248 @@ public class GameController implements ActionListener {
      *
      * @param size The size of the game's board.
      */
-    public GameController(int size) throws ClassNotFoundException, IOException {
+    public GameController(int size) {
+        this(size, new EscapeSearch());
+    }
+
+    /**
+     * The constructor for the class <b>GameController</b> with a given
+     * strategy for the moves of the blue dot.
+     *
+     * @param size The size of the game's board.
+     * @param escapeStrategy The strategy that computes the moves of the blue dot.
+     */
+    public GameController(int size, EscapeStrategy escapeStrategy) {
+        File save = null;
+        int boardSize = size;
 		try {
             String runningDir = CircleTheDot.getRunningFile().getParent();
-			File save = new File(runningDir + "/last_save.dat");
-			gameModel = deserialize(save);
-            final boolean deleted = save.delete();
-        } catch (FileNotFoundException | SecurityException e) {
-			gameModel = new GameModel(size);
-		} finally {
-			gameView = new GameView(gameModel, this);
-			undoStack = new LinkedStack<>(); // Initializes the undo stack
-			redoStack = new LinkedStack<>(); // Initializes the redo stack
-			gameView.update();
+			save = new File(runningDir + "/last_save.dat");
+			boardSize = SaveFormat.readSize(save);
+        } catch (IOException | SecurityException e) {
+			// no save, or a save that cannot be read
 		}
+
+        // decoding the images of the dots, the buttons of the view wait for them
+        CompletableFuture.runAsync(DotAtlas::get);
+
+        // building and showing the view on the Event Dispatch Thread
+        int viewSize = boardSize;
+        CompletableFuture<GameView> view = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            try {
+                view.complete(new GameView(viewSize, this));
+            } catch (RuntimeException e) {
+                view.completeExceptionally(e);
+                throw e;
+            }
+        });
+
+        // loading the model, the first task of the game thread
+        File loaded = save;
+        gameThread.execute(() -> start(loaded, viewSize, escapeStrategy, view));
     }
 
     /**
-     * Resets the game.
+     * Helper method: starts the game on the game thread, once the model is
+     * loaded and the view is built. The moves queued meanwhile are played
+     * next.
      *
-     * @throws EmptyStackException Thrown if one of the stacks is empty before
-     * resetting the the game.
+     * @param save The save of the last game, or null.
+     * @param size The size of the board.
+     * @param escapeStrategy The strategy that computes the moves of the blue dot.
+     * @param view The view being built by the Event Dispatch Thread.
      */
-    public void reset() throws EmptyStackException {
-        gameModel.reset();
-		undoStack.clear(); // Clears the undo stack
-		redoStack.clear(); // Clears the redo stack
-		gameView.update();
+    private void start(File save, int size, EscapeStrategy escapeStrategy,
+            CompletableFuture<GameView> view) {
+        try {
+            gameModel = load(save, size);
+        } catch (RuntimeException e) {
+            // a save that decodes into a model the game cannot play
+            gameModel = new GameModel(size);
+        }
+        gameEngine = new GameEngine(gameModel, escapeStrategy);
+        gameEngine.addListener(hintService);
+        gameView = view.join();
+        gameEngine.addListener(gameView);
+        gameView.gameChanged(gameEngine);
+    }
+
+    /**
+     * Helper method: loads the save of the last game, and deletes it. A new
+     * game is generated if there is no save, or a save that cannot be read.
+     *
+     * @param save The save of the last game, or null.
+     * @param size The size of the board.
+     * @return The model of the game.
+     */
+    private static GameModel load(File save, int size) {
+        if (save != null) {
+            try {
+                GameModel gameModel = SaveFormat.read(save);
+                final boolean deleted = save.delete();
+                if (gameModel.getSize() == size) {
+                    return gameModel;
+                }
+            } catch (IOException | SecurityException e) {
+                // no save, or a save that cannot be read
+            }
+        }
+        return new GameModel(size);
+    }
+
+    /**
+     * Resets the game, on the game thread.
+     */
+    public void reset() {
+        gameThread.execute(() -> gameEngine.reset());
     }
 
     /**
      * Callback used when the user clicks a button or one of the dots.
-     * Implements the logic of the game.
+     * Queues the move to the game thread, which passes it to the game's
+     * engine.
      *
      * @param e
      *            the ActionEvent
      */
-    public void actionPerformed(ActionEvent e) throws NullPointerException, EmptyStackException {
+    public void actionPerformed(ActionEvent e) {
         
         if (e.getSource() instanceof DotButton) {
             DotButton clicked = (DotButton)(e.getSource());
-
-        	if (gameModel.getCurrentStatus(clicked.getColumn(),clicked.getRow()) == GameModel.AVAILABLE){
-
-				GameModel undoCloned = gameModel.clone(); // Cloning the game model
-				undoStack.push(undoCloned); // Pushes the cloned game model into the undo stack
-				
-				redoStack.clear(); // clears the redo stack 
-				
-				gameModel.select(clicked.getColumn(),clicked.getRow());
-                oneStep();
-            }
+            selectDot(clicked.getColumn(), clicked.getRow());
         } else if (e.getSource() instanceof JButton) {
             JButton clicked = (JButton)(e.getSource());
             switch (clicked.getText()) {
                 case "Quit":
-                    gameModel.serialize();
-                    System.exit(0);
+                    gameThread.execute(() -> {
+                        gameModel.serialize();
+                        System.exit(0);
+                    });
                     break;
                 case "Reset":
                     reset(); // reset the game
                     break;
                 case "Undo":
-                    undo(); // undo the game
+                    gameThread.execute(() -> {
+                        // the button may be clicked again before it is hidden
+                        if (!gameEngine.isUndoStackEmpty()) {
+                            gameEngine.undo(); // undo the game
+                        }
+                    });
                     break;
                 case "Redo":
-                    redo(); // redo the game
+                    gameThread.execute(() -> {
+                        if (!gameEngine.isRedoStackEmpty()) {
+                            gameEngine.redo(); // redo the game
+                        }
+                    });
+                    break;
+                case "Hint":
+                    gameThread.execute(() -> {
+                        if (gameEngine.getStatus() == GameEngine.PLAYING) {
+                            hintService.request(gameModel, gameView.getBoard()::showHint);
+                        }
+                    });
                     break;
             }
         }
     }
 
-	/**
-     * Helper method: checks if a point is on the border of the board
-     *
-     * @param p
-     *            the point to check
+    /**
+     * Selects the dot (i,j) on behalf of the player, e.g., when a dot of the
+     * view is clicked. The move is queued to the game thread.
      *
-     * @return true iff p is on the border of the board
+     * @param i The column of the selected dot.
+     * @param j The row of the selected dot.
      */
-    private boolean isOnBorder(Point p) {
-        return (p.getX() == 0 || p.getX() == gameModel.getSize() - 1 ||
-                p.getY() == 0 || p.getY() == gameModel.getSize() - 1 );
+    public void selectDot(int i, int j) {
+        gameThread.execute(() -> play(i, j));
     }
 
     /**
-     * Computes the next step of the game. If the player has lost, it 
-     * shows a dialog offering to replay.
-     * If the user has won, it shows a dialog showing the number of 
-     * steps that had been required in order to win. 
-     * Else, it finds one of the shortest path for the blue dot to 
-     * exit the board and moves it one step in that direction.
+     * Helper method: plays a move on the game thread, and asks the player to
+     * play again if the move ends the game. The moves queued after the end
+     * of the game do not change it, and are ignored.
+     *
+     * @param i The column of the selected dot.
+     * @param j The row of the selected dot.
      */
-    private void oneStep() {
-        Point currentDot = gameModel.getCurrentDot();
-        if(isOnBorder(currentDot)) {
-            gameModel.setCurrentDot(-1,-1);
-            gameView.update();
- 
-            Object[] options = {"Play Again",
-                    "Quit"};
-            int n = JOptionPane.showOptionDialog(gameView,
-                    "You lost! Would you like to play again?",
-                    "Lost",
-                    JOptionPane.YES_NO_OPTION,
-                    JOptionPane.QUESTION_MESSAGE,
-                    null,
-                    options,
-                    options[0]);
-            if(n == 0){
-                reset();
-            } else{
-                System.exit(0);
-            }
+    private void play(int i, int j) {
+        Snapshot before = gameEngine.getSnapshot();
+        int status = gameEngine.play(i, j);
+        if (gameEngine.getSnapshot() == before) {
+            return;
         }
-        else{
-            Point direction = findDirection();
-            if(direction.getX() == -1){
-                gameView.update();
-                Object[] options = {"Play Again",
-                        "Quit"};
-                int n = JOptionPane.showOptionDialog(gameView,
-                        "Congratualtions, you won in " + gameModel.getNumberOfSteps() 
-                            +" steps!\n Would you like to play again?",
-                        "Won",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        options,
-                        options[0]);
-                if(n == 0){
-                    reset();
-                } else{
-                    System.exit(0);
-                }
-            }
-            else{
-                gameModel.setCurrentDot(direction.getX(), direction.getY());
-                gameView.update();
-            }
+        if (status != GameEngine.PLAYING) {
+            archive(gameEngine.getSnapshot());
+        }
+        if (status == GameEngine.LOST) {
+            SwingUtilities.invokeLater(() ->
+                    playAgainOrQuit("You lost! Would you like to play again?", "Lost"));
+        } else if (status == GameEngine.WON) {
+            int steps = gameModel.getNumberOfSteps();
+            SwingUtilities.invokeLater(() ->
+                    playAgainOrQuit("Congratualtions, you won in " + steps
+                            + " steps!\n Would you like to play again?", "Won"));
         }
- 
     }
 
     /**
-     * Does a ``breadth-first'' search from the current location of the blue dot to find
-     * one of the shortest available path to exit the board. 
+     * Helper method: appends a finished game to the archive games.dat and
+     * games.idx, next to the save of the game.
      *
-     * @return the location (as a Point) of the next step for the blue dot toward the exit.
-     * If the blue dot is encircled and cannot exit, returns an instance of the class Point 
-     * at location (-1,-1)
+     * @param last The snapshot of the last move of the game.
      */
-    private Point findDirection() {
-        boolean[][] blocked = new boolean[gameModel.getSize()][gameModel.getSize()];
-
-        for(int i = 0; i < gameModel.getSize(); i ++){
-            for (int j = 0; j < gameModel.getSize(); j ++){
-                blocked[i][j] = 
-                    !(gameModel.getCurrentStatus(i,j) == GameModel.AVAILABLE);
-            }
-        }
-
-        Queue<Pair<Point>> myQueue = new LinkedQueue<>();
-
-        // start with neighbours of the current dot
-        // (note: we know the current dot isn't on the border)
-        Point currentDot = gameModel.getCurrentDot();
-
-        LinkedList<Point> possibleNeighbours = findPossibleNeighbours(currentDot, blocked);
-
-        // adding some non determinism into the game !
-        java.util.Collections.shuffle(possibleNeighbours);
-
-        for (Point p : possibleNeighbours) {
-            if (isOnBorder(p)) {
-                return p;
+    private static void archive(Snapshot last) {
+        try {
+            String runningDir = CircleTheDot.getRunningFile().getParent();
+            try (GameArchive archive = new GameArchive(new File(runningDir + "/games"))) {
+                archive.append(last);
             }
-            myQueue.enqueue(new Pair<>(p, p));
-            blocked[p.getX()][p.getY()] = true;
+        } catch (IOException | SecurityException e) {
+            // the game is not archived, it can still be played again
         }
-
-
-        // start the search
-        while(!myQueue.isEmpty()){
-            Pair<Point> pointPair = myQueue.dequeue();
-            possibleNeighbours = findPossibleNeighbours(pointPair.getFirst(), blocked);
-
-            for (Point p : possibleNeighbours) {
-                if (isOnBorder(p)) {
-                    return pointPair.getSecond();
-                }
-                myQueue.enqueue(new Pair<>(p, pointPair.getSecond()));
-                blocked[p.getX()][p.getY()] = true;
-            }
-
-       }
-
-        // could not find a way out. Return an outside direction
-        return new Point(-1,-1);
-
     }
 
-	/**
-     * Helper method: find the list of direct neighbours of a point that are not
-     * currenbtly blocked
-     *
-     * @param point
-     *            the point to check
-     * @param blocked
-     *            a 2 dimentionnal array of booleans specifying the points that 
-     *              are currently blocked
+    /**
+     * Helper method: shows a dialog once the game is over, offering to replay.
      *
-     * @return an instance of a LinkedList class, holding a list of instances of 
-     *      the class Points representing the neighbours of parameter point that 
-     *      are not currently blocked.
+     * @param message
+     *            the message of the dialog
+     * @param title
+     *            the title of the dialog
      */
-    private LinkedList<Point> findPossibleNeighbours(Point point, boolean[][] blocked) {
-
-        LinkedList<Point> list = new LinkedList<>();
-        int delta = (point.getY() %2 == 0) ? 1 : 0;
-        if(!blocked[point.getX()-delta][point.getY()-1]){
-            list.add(new Point(point.getX()-delta, point.getY()-1));
+    private void playAgainOrQuit(String message, String title) {
+        Object[] options = {"Play Again",
+                "Quit"};
+        int n = JOptionPane.showOptionDialog(gameView,
+                message,
+                title,
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[0]);
+        if(n == 0){
+            reset();
+        } else{
+            System.exit(0);
         }
-        if(!blocked[point.getX()-delta+1][point.getY()-1]){
-            list.add(new Point(point.getX()-delta+1, point.getY()-1));
-        }
-        if(!blocked[point.getX()-1][point.getY()]){
-            list.add(new Point(point.getX()-1, point.getY()));
-        }
-        if(!blocked[point.getX()+1][point.getY()]){
-            list.add(new Point(point.getX()+1, point.getY()));
-        }
-        if(!blocked[point.getX()-delta][point.getY()+1]){
-            list.add(new Point(point.getX()-delta, point.getY()+1));
-        }
-        if(!blocked[point.getX()-delta+1][point.getY()+1]){
-            list.add(new Point(point.getX()-delta+1, point.getY()+1));
-        }
-        return list;
     }
-	
-	/**
-	 * Undoes the game
-	 */
-	private void undo() throws EmptyStackException {
-		GameModel redoCloned = gameModel.clone(); // Cloning the game model
-		redoStack.push(redoCloned); // Pushes the cloned game model into the redo stack
-		
-		GameModel undoed = undoStack.pop();
-		
-		gameModel.setModel(undoed.getModel());
-		gameModel.setCurrentDot(undoed.getCurrentDot().getX(), undoed.getCurrentDot().getY());
-		gameModel.decrementNumberOfSteps();
-		
-		gameView.update();
-	}
-	
-	/**
-	 * Redoes the game
-	 */
-	private void redo() throws EmptyStackException {
-		GameModel undoCloned = gameModel.clone(); // Cloning the game model
-		undoStack.push(undoCloned); // Pushes the cloned game model into the undo stack
-		
-		GameModel redoed = redoStack.pop();
-		
-		gameModel.setModel(redoed.getModel());
-		gameModel.setCurrentDot(redoed.getCurrentDot().getX(), redoed.getCurrentDot().getY());
-		gameModel.incrementNumberOfSteps();
-		
-		gameView.update();
-	}
-	
+
 	/**
-	 * Checks if the redo stack is empty
+	 * Checks if the redo stack is empty. It is called on the game thread.
 	 */
 	public boolean isRedoStackEmpty() {
-		return redoStack.isEmpty();
+		return gameEngine.isRedoStackEmpty();
 	}
 	
 	/**
-	 * Checks if the undo stack is empty
+	 * Checks if the undo stack is empty. It is called on the game thread.
 	 */
 	public boolean isUndoStackEmpty() {
-		return undoStack.isEmpty();
+		return gameEngine.isUndoStackEmpty();
 	}
 
-	/**
-	 * Creates a game model object by reading an SER file
-	 * @param save
-	 *			the file that contains the game model binary data
-	 * @return the created game model
-	 */
-	private GameModel deserialize(File save) throws ClassNotFoundException, IOException {
-		FileInputStream saveIS = new FileInputStream(save);
-		ObjectInputStream gameModelIS = new ObjectInputStream(saveIS);
-		GameModel gameModel = (GameModel) gameModelIS.readObject();
-		gameModelIS.close();
-		
-		return gameModel;
-	}
-	
 }
@@ -0,0 +1,365 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import util.Cells;
+
+/**
+ * The class <b>GameEngine</b> implements the rules of the game without any
+ * user interface. It applies the selections of the player, moves the blue
+ * dot, keeps the undo/redo history and tells whether the game is won or
+ * lost. The views observe the engine through the <b>GameListener</b>
+ * interface, so the engine can run headless, e.g., for simulations.
+ *
+ * Besides the undo/redo history, the engine keeps an immutable
+ * <b>Snapshot</b> of every move of the current line of play. The snapshots
+ * share the unchanged parts of the board, so any move can be revisited, and
+ * played again from, with <b>jumpTo</b>.
+ *
+ * Every change of the game publishes, with <b>getChanges</b>, the set of the
+ * dots it has changed, so the views only update these dots.
+ *
+ * The engine is not thread-safe: it, its model and its listeners are used by
+ * a single thread, e.g., the game thread of <b>GameController</b>.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class GameEngine {
+
+    /** The predefined value of the status of a game being played. */
+    public static final int PLAYING = 0;
+
+    /** The predefined value of the status of a game won by the player. */
+    public static final int WON = 1;
+
+    /** The predefined value of the status of a game lost by the player. */
+    public static final int LOST = 2;
+
+    /** The reference to the game's model. */
+    private final GameModel gameModel;
+
+    /** The strategy that computes the moves of the blue dot. */
+    private final EscapeStrategy escapeStrategy;
+
+    /** The undo/redo history of the moves of the game. */
+    private final MoveLog moveLog;
+
+    /**
+     * The snapshots of the current line of play, the snapshot after k moves
+     * being at index k. The snapshots after the applied moves can be redone.
+     */
+    private final List<Snapshot> history;
+
+    /** The observers of the game. */
+    private final List<GameListener> listeners;
+
+    /** The status of the game, PLAYING, WON or LOST. */
+    private int status;
+
+    /** The dots changed by the last change of the game. */
+    private ChangeSet changes = ChangeSet.ALL;
+
+    /**
+     * The constructor for the class <b>GameEngine</b>.
+     *
+     * @param gameModel The model of the game.
+     * @param escapeStrategy The strategy that computes the moves of the blue dot.
+     */
+    public GameEngine(GameModel gameModel, EscapeStrategy escapeStrategy) {
+        this.gameModel = gameModel;
+        this.escapeStrategy = escapeStrategy;
+        this.moveLog = new MoveLog();
+        this.history = new ArrayList<>();
+        this.listeners = new ArrayList<>();
+        this.status = PLAYING;
+        history.add(Snapshot.of(gameModel, status));
+    }
+
+    /**
+     * Registers an observer of the game.
+     *
+     * @param listener The observer to call back when the game changes.
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes an observer of the game.
+     *
+     * @param listener The observer to remove.
+     */
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * An instance method for getting the reference to the game's model.
+     *
+     * @return The reference to the game's model.
+     */
+    public GameModel getGameModel() {
+        return gameModel;
+    }
+
+    /**
+     * An instance method for getting the status of the game.
+     *
+     * @return PLAYING, WON or LOST.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * An instance method for getting the dots changed by the last change of
+     * the game, e.g., by the listeners when they are called back.
+     *
+     * @return The change set of the last change.
+     */
+    public ChangeSet getChanges() {
+        return changes;
+    }
+
+    /**
+     * Plays one move of the game: selects the dot (i,j) and then moves the
+     * blue dot one step. Nothing happens if the game is over or if the dot
+     * is not AVAILABLE.
+     *
+     * @param i The x coordinate of the selected dot.
+     * @param j The y coordinate of the selected dot.
+     * @return the status of the game after the move.
+     */
+    public int play(int i, int j) {
+        int dot = gameModel.getCurrentIndex();
+        if (applySelection(i, j)) {
+            advanceBlueDot();
+            fireGameChanged(ChangeSet.of(Cells.index(i, j, gameModel.getSize()), dot,
+                    gameModel.getCurrentIndex()));
+        }
+        return status;
+    }
+
+    /**
+     * Selects the dot (i,j) without moving the blue dot, which <b>advance</b>
+     * then moves to complete the move. Nothing happens if the game is over
+     * or if the dot is not AVAILABLE.
+     *
+     * @param i The x coordinate of the selected dot.
+     * @param j The y coordinate of the selected dot.
+     * @return true if the dot has been selected.
+     */
+    public boolean select(int i, int j) {
+        boolean selected = applySelection(i, j);
+        if (selected) {
+            fireGameChanged(ChangeSet.of(Cells.index(i, j, gameModel.getSize())));
+        }
+        return selected;
+    }
+
+    /**
+     * Moves the blue dot one step on one of the shortest paths to exit the
+     * board. If the blue dot is on the border, it exits and the game is
+     * lost. If it is encircled, the game is won.
+     *
+     * The step completes the move of the last <b>select</b>, and is undone
+     * with it, so it must follow a select. Nothing happens if the game is
+     * over.
+     *
+     * @return the status of the game after the step.
+     * @throws IllegalStateException Thrown if the last move has no selection
+     *                               waiting for the step of the blue dot.
+     */
+    public int advance() throws IllegalStateException {
+        if (status == PLAYING) {
+            if (!isAwaitingStep()) {
+                throw new IllegalStateException("No selection to advance from");
+            }
+            int dot = gameModel.getCurrentIndex();
+            advanceBlueDot();
+            fireGameChanged(ChangeSet.of(dot, gameModel.getCurrentIndex()));
+        }
+        return status;
+    }
+
+    /**
+     * Resets the game.
+     */
+    public void reset() {
+        gameModel.reset();
+        moveLog.clear(); // Clears the history
+        status = PLAYING;
+        history.clear();
+        history.add(Snapshot.of(gameModel, status));
+        fireGameChanged(ChangeSet.ALL);
+    }
+
+    /**
+     * Undoes the last move of the game.
+     *
+     * @throws util.EmptyStackException Thrown if there is no move to undo.
+     */
+    public void undo() {
+        Snapshot undone = getSnapshot();
+        moveLog.undo(gameModel);
+        status = PLAYING;
+        fireGameChanged(changes(undone));
+    }
+
+    /**
+     * Redoes the last undone move of the game.
+     *
+     * @throws util.EmptyStackException Thrown if there is no move to redo.
+     */
+    public void redo() {
+        status = moveLog.redo(gameModel);
+        fireGameChanged(changes(getSnapshot()));
+    }
+
+    /**
+     * An instance method for getting the snapshot of the current state of
+     * the game.
+     *
+     * @return The snapshot of the last applied move.
+     */
+    public Snapshot getSnapshot() {
+        return history.get(moveLog.size());
+    }
+
+    /**
+     * An instance method for getting the snapshots of the current line of
+     * play, from the start of the game to the last move that can be redone.
+     *
+     * @return The read-only list of snapshots, indexed by number of moves.
+     */
+    public List<Snapshot> getHistory() {
+        return Collections.unmodifiableList(history);
+    }
+
+    /**
+     * Restores the game to a snapshot, e.g., a move of the history or of
+     * another line of play of the same game. The next move played branches
+     * from that snapshot, and its previous moves can be undone.
+     *
+     * @param snapshot The snapshot to restore.
+     */
+    public void jumpTo(Snapshot snapshot) {
+        List<Snapshot> line = new ArrayList<>();
+        for (Snapshot s = snapshot; s != null; s = s.getParent()) {
+            line.add(s);
+        }
+        Collections.reverse(line);
+
+        moveLog.clear();
+        for (Snapshot s : line) {
+            if (s.getParent() != null) {
+                moveLog.record(s.getMove(), s.getParent().getCurrentIndex(),
+                        s.getCurrentIndex(), s.getStatus());
+            }
+        }
+        history.clear();
+        history.addAll(line);
+        gameModel.restore(snapshot);
+        status = snapshot.getStatus();
+        fireGameChanged(ChangeSet.ALL);
+    }
+
+    /**
+     * Checks if there is no move to redo
+     *
+     * @return true if there is no move to redo.
+     */
+    public boolean isRedoStackEmpty() {
+        return moveLog.isRedoEmpty();
+    }
+
+    /**
+     * Checks if there is no move to undo
+     *
+     * @return true if there is no move to undo.
+     */
+    public boolean isUndoStackEmpty() {
+        return moveLog.isUndoEmpty();
+    }
+
+    /**
+     * Helper method: checks if the last move is a selection whose blue dot
+     * has not moved yet. The blue dot always moves after a selection, unless
+     * the game is won or lost.
+     *
+     * @return true if the blue dot can advance to complete the last move.
+     */
+    private boolean isAwaitingStep() {
+        Snapshot snapshot = getSnapshot();
+        return snapshot.getParent() != null
+                && snapshot.getCurrentIndex() == snapshot.getParent().getCurrentIndex();
+    }
+
+    /**
+     * Helper method: selects the dot (i,j) and records the move in the
+     * history.
+     *
+     * @param i The x coordinate of the selected dot.
+     * @param j The y coordinate of the selected dot.
+     * @return true if the dot has been selected.
+     */
+    private boolean applySelection(int i, int j) {
+        if (status != PLAYING || gameModel.getCurrentStatus(i, j) != GameModel.AVAILABLE) {
+            return false;
+        }
+        int dot = gameModel.getCurrentIndex();
+        int move = Cells.index(i, j, gameModel.getSize());
+        moveLog.record(move, dot, dot, status);
+        history.subList(moveLog.size(), history.size()).clear();
+        history.add(history.get(moveLog.size() - 1).next(move, dot, status));
+        gameModel.select(i, j);
+        return true;
+    }
+
+    /**
+     * Helper method: moves the blue dot one step and updates the status.
+     */
+    private void advanceBlueDot() {
+        int dot = gameModel.getCurrentIndex();
+        if (gameModel.getTopology().isOnBorder(dot)) {
+            gameModel.setCurrentIndex(-1);
+            status = LOST;
+        } else {
+            int direction = escapeStrategy.findDirection(gameModel);
+            if (direction == EscapeStrategy.NONE) {
+                status = WON;
+            } else {
+                gameModel.setCurrentIndex(direction);
+            }
+        }
+        moveLog.update(gameModel.getCurrentIndex(), status);
+        history.subList(moveLog.size() + 1, history.size()).clear();
+        history.set(moveLog.size(), getSnapshot().withCurrentDot(gameModel.getCurrentIndex(), status));
+    }
+
+    /**
+     * Helper method: returns the dots changed by a move, i.e., the selected
+     * dot and the locations of the blue dot before and after the move.
+     *
+     * @param snapshot The snapshot of the move.
+     * @return The change set of the move.
+     */
+    private static ChangeSet changes(Snapshot snapshot) {
+        return ChangeSet.of(snapshot.getMove(), snapshot.getCurrentIndex(),
+                snapshot.getParent().getCurrentIndex());
+    }
+
+    /**
+     * Helper method: publishes the dots changed and calls back all the
+     * observers of the game.
+     *
+     * @param changes The dots changed.
+     */
+    private void fireGameChanged(ChangeSet changes) {
+        this.changes = changes;
+        for (GameListener listener : listeners) {
+            listener.gameChanged(this);
+        }
+    }
+
+}
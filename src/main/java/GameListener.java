@@ -0,0 +1,17 @@
+/**
+ * The interface <b>GameListener</b> for defining the observers of a
+ * <b>GameEngine</b>. The listeners are called back every time the state of
+ * the game changes.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public interface GameListener {
+
+    /**
+     * Called back after the state of the game has changed.
+     * @param gameEngine The engine of the game that changed.
+     */
+    void gameChanged(GameEngine gameEngine);
+
+}
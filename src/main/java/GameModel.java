@@ -1,13 +1,12 @@
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.net.URISyntaxException;
 import java.util.Random;
+import util.BitBoard;
 import util.Util;
 import util.Point;
+import util.Topology;
+import util.Zobrist;
 
 /**
  * The class <b>GameModel</b> holds the model, the state of the systems. It 
@@ -17,6 +16,8 @@ import util.Point;
  *   the blue dot.
  * - The size of the board.
  * - The number of steps since the last reset.
+ * - The seed the board was generated from.
+ * - The Zobrist hash of the position (the selected dots and the blue dot).
  *
  * The model provides all of this informations to the other classes trough 
  * appropriate Getters. The controller can also update the model through 
@@ -32,7 +33,7 @@ public class GameModel implements Cloneable, Serializable {
 	 * The version number of the serializable class associated by the 
      * serializable runtime.
 	 */
-    private static final long serialVersionUID = -5655252147418456207L;
+    private static final long serialVersionUID = 3128459917021538601L;
 
     /** 
      * The predefined value to capture the state of a dot when it is
@@ -63,14 +64,16 @@ public class GameModel implements Cloneable, Serializable {
     private int sizeOfGame;
  
     /**
-     * A 2 dimentionnal array of sizeOfGame*sizeOfGame recording the state of each dot
+     * The packed bits of sizeOfGame*sizeOfGame dots recording whether each
+     * dot is selected. The dot (i,j) is stored at the index j*sizeOfGame+i.
      */
-    private int[][] model;
+    private BitBoard selected;
 
 	/**
-     * The current position of the blue dot
+     * The index of the current position of the blue dot, or -1 once the
+     * blue dot has exited the board
      */
-    private Point currentDot;
+    private int currentDot;
 
 	/**
      * The number of steps played since the last reset
@@ -78,9 +81,43 @@ public class GameModel implements Cloneable, Serializable {
     private int numberOfSteps;
 	
 	/**
-	 * Reference to a random generator
+	 * Reference to a random generator, drawing the seeds of the next boards
 	 */
     private Random generator;
+
+	/**
+	 * The seed the current board was generated from, which also seeds the
+	 * random choices of the blue dot
+	 */
+    private long seed;
+
+	/**
+	 * True while the position is the board generated from the seed, before
+	 * any change, so the board can be stored as its seed alone
+	 */
+    private boolean seeded;
+
+	/**
+	 * The distance to the border of every dot, created on first use
+	 */
+    private transient DistanceField distanceField;
+
+	/**
+	 * The Zobrist hash of the selected dots and of the blue dot, kept up to
+	 * date by every change of the position
+	 */
+    private long zobristKey;
+
+	/**
+	 * The Zobrist keys of the size of the board, fetched on first use
+	 */
+    private transient Zobrist zobrist;
+
+	/**
+	 * The neighbours and the border of the size of the board, fetched on
+	 * first use
+	 */
+    private transient Topology topology;
 	
 	
     /**
@@ -90,54 +127,121 @@ public class GameModel implements Cloneable, Serializable {
      *            the size of the board
      */
     public GameModel(int size) {
+        this(size, new Random());
+    }
+
+    /**
+     * Constructor to initialize the model to a given size of board, with a
+     * given random generator for the initial boards.
+     * 
+     * @param size
+     *            the size of the board
+     * @param generator
+     *            the random generator used by reset()
+     */
+    public GameModel(int size, Random generator) {
         numberOfSteps = 0;
-        generator = new Random();
+        this.generator = generator;
         sizeOfGame = size;
 
         reset();
     }
 
+    /**
+     * Constructor to initialize the model to the board of a given seed. The
+     * same size and seed always give the same board.
+     * 
+     * @param size
+     *            the size of the board
+     * @param seed
+     *            the seed of the board
+     */
+    public GameModel(int size, long seed) {
+        numberOfSteps = 0;
+        this.generator = new Random(seed);
+        sizeOfGame = size;
+
+        reset(seed);
+    }
+
+    /**
+     * Constructor to initialize the model to a given state, e.g., a state
+     * read from a save.
+     * 
+     * @param size
+     *            the size of the board
+     * @param generator
+     *            the random generator used by reset()
+     * @param seed
+     *            the seed of the board
+     * @param selected
+     *            the packed board of selected dots
+     * @param currentDot
+     *            the index of the blue dot, or -1
+     * @param numberOfSteps
+     *            the number of steps played since the last reset
+     */
+    GameModel(int size, Random generator, long seed, BitBoard selected,
+            int currentDot, int numberOfSteps) {
+        this.sizeOfGame = size;
+        this.generator = generator;
+        this.seed = seed;
+        this.selected = selected;
+        this.currentDot = currentDot;
+        this.numberOfSteps = numberOfSteps;
+        this.zobristKey = zobrist().hash(selected, currentDot);
+    }
+
     /**
      * Resets the model to (re)start a game. The previous game (if there is one)
      * is cleared up . The blue dot is positioned as per instructions, and each 
      * dot of the board is either AVAILABLE, or SELECTED (with
-     * a probability 1/INITIAL_PROBA). The number of steps is reset.
+     * a probability 1/INITIAL_PROBA). The number of steps is reset. The seed
+     * of the new board is drawn from the random generator.
      */
     public void reset() {
+        reset(generator.nextLong());
+    }
 
-        model = new int[sizeOfGame][sizeOfGame];
+    /**
+     * Resets the model to (re)start the game of a given seed, as reset() 
+     * does. The same size and seed always give the same board.
+     * 
+     * @param seed
+     *            the seed of the board
+     */
+    public void reset(long seed) {
 
-        for(int i = 0; i < sizeOfGame; i++){
-            for(int j = 0; j < sizeOfGame; j++){
-                model[i][j] = AVAILABLE;
-            }
-        }
+        this.seed = seed;
+        Random board = new Random(seed);
+        selected = new BitBoard(sizeOfGame * sizeOfGame);
 
         // on a odd board, put the current dot randomly on a centered square of
         // 2 by 2, on an even board, put the current dot randomly on a centered 
         // square of 3 by 3
 
         if(sizeOfGame%2 == 0){
-            currentDot = new Point(sizeOfGame/2 - generator.nextInt(2),
-                sizeOfGame/2 - generator.nextInt(2));
+            int x = sizeOfGame/2 - board.nextInt(2);
+            currentDot = index(x, sizeOfGame/2 - board.nextInt(2));
         } else{
-            currentDot = new Point(sizeOfGame/2 + 1 - generator.nextInt(3),
-                sizeOfGame/2 + 1 - generator.nextInt(3));
+            int x = sizeOfGame/2 + 1 - board.nextInt(3);
+            currentDot = index(x, sizeOfGame/2 + 1 - board.nextInt(3));
         }
 
-        model[currentDot.getX()][currentDot.getY()] = BLUE_DOT;
-
         for(int i = 0; i < sizeOfGame; i++){
             for(int j = 0; j < sizeOfGame; j++){
-                if(!( i == currentDot.getX() && j == currentDot.getY())){
-                    if(generator.nextInt(INITIAL_PROBA) == 0){
-                        model[i][j] = SELECTED;
+                if(index(i, j) != currentDot){
+                    if(board.nextInt(INITIAL_PROBA) == 0){
+                        selected.set(index(i, j));
                     }
                 }
             }
         }
 
         numberOfSteps = 0;
+        seeded = true;
+        zobristKey = zobrist().hash(selected, currentDot);
+        invalidateDistanceField();
     }
 
     /**
@@ -150,14 +254,81 @@ public class GameModel implements Cloneable, Serializable {
     }
 
 	/**
-     * Getter method for the ``model'' array
+     * Getter method for the ``model'' array. The array is built from the
+     * packed board, so changing it does not change the model.
      * 
-     * @return the model array
+     * @return a copy of the model as an array of statuses
      */   
     public int[][] getModel() {
+        int[][] model = new int[sizeOfGame][sizeOfGame];
+        for(int i = 0; i < sizeOfGame; i++){
+            for(int j = 0; j < sizeOfGame; j++){
+                model[i][j] = getCurrentStatus(i, j);
+            }
+        }
         return model;
     }
 
+    /**
+     * Getter method for the random generator of the initial boards
+     * 
+     * @return the random generator used by reset()
+     */   
+    Random getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Getter method for the seed of the current board
+     * 
+     * @return the seed the board was generated from
+     */   
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Checks if the position is the board generated from the seed, e.g., to
+     * store the seed alone in place of the board
+     *
+     * @return true if no dot has changed since reset(seed)
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Returns the seed of the random choices of the current turn. It only
+     * depends on the seed of the board and on the number of steps, so 
+     * replaying the same moves on the same board gives the same choices.
+     * 
+     * @return the seed of the current turn
+     */   
+    public long getTurnSeed() {
+        return Util.mix64(seed ^ (numberOfSteps * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Getter method for the Zobrist hash of the position, i.e., of the 
+     * selected dots and of the blue dot. Equal positions have equal hashes,
+     * in every run of the game.
+     * 
+     * @return the 64-bit hash of the position
+     */   
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Getter method for the packed board of selected dots. The dot (i,j) is
+     * stored at the index j*getSize()+i.
+     * 
+     * @return the packed board of selected dots
+     */   
+    public BitBoard getSelected() {
+        return selected;
+    }
+
     /**
      * returns the current status (AVAILABLE, SELECTED or BLUE_DOT) of a given dot in the game
      * 
@@ -168,15 +339,70 @@ public class GameModel implements Cloneable, Serializable {
      * @return the status of the dot at location (i,j)
      */   
     public int getCurrentStatus(int i, int j) {
-        return model[i][j];
+        int index = index(i, j);
+        if(index == currentDot){
+            return BLUE_DOT;
+        }
+        return selected.get(index) ? SELECTED : AVAILABLE;
+    }
+
+    /**
+     * Checks if the dot at a given index (j*getSize()+i) is AVAILABLE
+     * 
+     * @param index
+     *            the index of the dot
+     * @return true iff the dot is neither selected nor the blue dot
+     */   
+    public boolean isAvailable(int index) {
+        return index != currentDot && !selected.get(index);
+    }
+
+	/**
+     * Getter method for the topology of the board: the neighbours and the
+     * border of the dots, shared by every board of the same size.
+     * 
+     * @return the topology of the size of the board
+     */   
+    public Topology getTopology() {
+        if(topology == null){
+            topology = Topology.of(sizeOfGame);
+        }
+        return topology;
+    }
+
+	/**
+     * Getter method for the distance to the border of every dot. The field
+     * is created on first use and then kept up to date by the model.
+     * 
+     * @return the distance field of the model
+     */   
+    public DistanceField getDistanceField() {
+        if(distanceField == null){
+            distanceField = new DistanceField(this);
+        }
+        return distanceField;
     }
 
 	/**
      * Getter method for the current blue dot
      * 
-     * @return the location of the curent blue dot
+     * @return the location of the curent blue dot, or (-1,-1) if the blue
+     *         dot has exited the board
      */   
     public Point getCurrentDot() {
+        if(currentDot == -1){
+            return new Point(-1, -1);
+        }
+        return new Point(currentDot % sizeOfGame, currentDot / sizeOfGame);
+    }
+
+	/**
+     * Getter method for the index (j*getSize()+i) of the current blue dot
+     * 
+     * @return the index of the curent blue dot, or -1 if the blue dot has
+     *         exited the board
+     */   
+    public int getCurrentIndex() {
         return currentDot;
     }
 
@@ -190,11 +416,78 @@ public class GameModel implements Cloneable, Serializable {
     }
 	
 	/**
+	 * Sets the status of every dot from an array of statuses
 	 *
+	 * @param model
+	 *            the array of statuses, as returned by getModel()
 	 */
 	public void setModel(int[][] model) {
-    	for(int i = 0; i < sizeOfGame; i++)
-			System.arraycopy(model[i], 0, this.model[i], 0, sizeOfGame);
+		selected.clear();
+		currentDot = -1;
+		for(int i = 0; i < sizeOfGame; i++){
+			for(int j = 0; j < sizeOfGame; j++){
+				if(model[i][j] == SELECTED){
+					selected.set(index(i, j));
+				} else if(model[i][j] == BLUE_DOT){
+					currentDot = index(i, j);
+				}
+			}
+		}
+		seeded = false;
+		zobristKey = zobrist().hash(selected, currentDot);
+		invalidateDistanceField();
+	}
+
+	/**
+	 * Restores the dots, the blue dot, the number of steps and the seed of
+	 * another model of the same size
+	 *
+	 * @param other
+	 *            the model to restore
+	 */
+	public void restore(GameModel other) {
+		if(distanceField != null && countChanges(other) <= sizeOfGame){
+			// repairs the distance field one changed dot at a time
+			for(int w = 0; w < selected.wordCount(); w++){
+				long changes = selected.word(w) ^ other.selected.word(w);
+				while(changes != 0){
+					int index = (w << 6) + Long.numberOfTrailingZeros(changes);
+					changes &= changes - 1;
+					if(other.selected.get(index)){
+						selected.set(index);
+						distanceField.block(index);
+					} else{
+						selected.clear(index);
+						distanceField.unblock(index);
+					}
+				}
+			}
+		} else{
+			selected.copyFrom(other.selected);
+			invalidateDistanceField();
+		}
+		currentDot = other.currentDot;
+		numberOfSteps = other.numberOfSteps;
+		seed = other.seed;
+		seeded = other.seeded;
+		zobristKey = other.zobristKey;
+	}
+	
+	/**
+	 * Restores the dots, the blue dot, the number of steps and the seed of a
+	 * snapshot of a game of the same size
+	 *
+	 * @param snapshot
+	 *            the snapshot to restore
+	 */
+	public void restore(Snapshot snapshot) {
+		snapshot.getSelected().copyTo(selected);
+		currentDot = snapshot.getCurrentIndex();
+		numberOfSteps = snapshot.getNumberOfSteps();
+		seed = snapshot.getSeed();
+		seeded = snapshot.isSeeded();
+		zobristKey = snapshot.getZobristKey();
+		invalidateDistanceField();
 	}
 	
     /**
@@ -207,8 +500,32 @@ public class GameModel implements Cloneable, Serializable {
      *            the y coordinate of the dot
      */   
     public void select(int i, int j) {
-        model[i][j] = SELECTED;
+        selected.set(index(i, j));
+        zobristKey ^= zobrist().selected(index(i, j));
         numberOfSteps++;
+        seeded = false;
+        if(distanceField != null){
+            distanceField.block(index(i, j));
+        }
+    }
+
+    /**
+     * Sets the status of the dot at coordinate (i,j) back to AVAILABLE, and 
+     * decreases the number of steps by one. This reverts select(i,j).
+     * 
+     * @param i
+     *            the x coordinate of the dot
+     * @param j
+     *            the y coordinate of the dot
+     */   
+    public void unselect(int i, int j) {
+        selected.clear(index(i, j));
+        zobristKey ^= zobrist().selected(index(i, j));
+        numberOfSteps--;
+        seeded = false;
+        if(distanceField != null){
+            distanceField.unblock(index(i, j));
+        }
     }
 
     /**
@@ -222,12 +539,21 @@ public class GameModel implements Cloneable, Serializable {
      *            the new y coordinate of the blue dot
      */   
     public void setCurrentDot(int i, int j) {
-        model[currentDot.getX()][currentDot.getY()] = AVAILABLE;
         // pass on "-1" to remove the current dot at the end of the game
-        if(i != -1) {
-            model[i][j] = BLUE_DOT;
-            currentDot.reset(i,j);
-        }
+        setCurrentIndex((i == -1) ? -1 : index(i, j));
+    }
+
+    /**
+     * Puts the blue dot at a given index (j*getSize()+i). An index of -1
+     * means that the blue dot exits the board (the player lost)
+     *
+     * @param index
+     *            the new index of the blue dot
+     */   
+    public void setCurrentIndex(int index) {
+        zobristKey ^= zobrist().dot(currentDot) ^ zobrist().dot(index);
+        seeded &= index == currentDot;
+        currentDot = index;
     }
 
 	/**
@@ -235,6 +561,7 @@ public class GameModel implements Cloneable, Serializable {
 	 */
 	public void decrementNumberOfSteps() {
 		--numberOfSteps;
+		seeded = false;
 	}
 	
 	/**
@@ -242,26 +569,49 @@ public class GameModel implements Cloneable, Serializable {
 	 */
 	public void incrementNumberOfSteps() {
 		numberOfSteps++;
+		seeded = false;
 	}
 	
 	@Override
 	public String toString() {
 		return "GameModel" +
-				Util.matrixToString(model) +
+				Util.matrixToString(getModel()) +
 				"\n" +
-				currentDot.toString() +
+				getCurrentDot().toString() +
 				"\n" +
 				numberOfSteps;
 	}
 	
+	/**
+	 * Two models are equal if they hold the same position: the same size,
+	 * the same selected dots and the same blue dot. The number of steps and
+	 * the seeds are not compared.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if(this == o){
+			return true;
+		}
+		if(!(o instanceof GameModel)){
+			return false;
+		}
+		GameModel other = (GameModel) o;
+		return zobristKey == other.zobristKey && sizeOfGame == other.sizeOfGame
+				&& currentDot == other.currentDot && selected.equals(other.selected);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (zobristKey ^ (zobristKey >>> 32));
+	}
+	
 	@Override
 	public GameModel clone() {
 		GameModel cloned;
 		try {
 			cloned = (GameModel) super.clone();
-			cloned.currentDot = new Point(currentDot.getX(), currentDot.getY());
-			cloned.model = new int[sizeOfGame][sizeOfGame];
-			cloned.setModel(model);
+			cloned.selected = selected.clone();
+			cloned.distanceField = null;
 		} catch (CloneNotSupportedException c) {
 			throw new RuntimeException("Object cannot be cloned");
 		}
@@ -269,7 +619,58 @@ public class GameModel implements Cloneable, Serializable {
 	}
 
 	/**
-	 * Creates an DAT file the contains the binary data of the calling game model
+	 * Helper method: counts the dots whose selection differs from another
+	 * model of the same size
+	 *
+	 * @param other
+	 *            the model to compare with
+	 * @return the number of dots that differ
+	 */
+	private int countChanges(GameModel other) {
+		int count = 0;
+		for(int w = 0; w < selected.wordCount(); w++){
+			count += Long.bitCount(selected.word(w) ^ other.selected.word(w));
+		}
+		return count;
+	}
+
+	/**
+	 * Helper method: returns the Zobrist keys of the size of the board
+	 *
+	 * @return the keys
+	 */
+	private Zobrist zobrist() {
+		if(zobrist == null){
+			zobrist = Zobrist.of(sizeOfGame);
+		}
+		return zobrist;
+	}
+
+	/**
+	 * Helper method: marks the distance field, if any, to be computed again
+	 */
+	private void invalidateDistanceField() {
+		if(distanceField != null){
+			distanceField.invalidate();
+		}
+	}
+
+	/**
+	 * Helper method: returns the index of the dot (i,j) in the packed board
+	 *
+	 * @param i
+	 *            the x coordinate of the dot
+	 * @param j
+	 *            the y coordinate of the dot
+	 * @return the index of the dot
+	 */
+	private int index(int i, int j) {
+		return j * sizeOfGame + i;
+	}
+
+	/**
+	 * Creates an DAT file the contains the binary data of the calling game
+	 * model, in the compact format of the class <b>SaveFormat</b>
 	 * @returns the DAT file
 	 */
 	public File serialize() {
@@ -277,12 +678,7 @@ public class GameModel implements Cloneable, Serializable {
 		try {
 			String runningDir = CircleTheDot.getRunningFile().getParent();
 			save = new File(runningDir + "/last_save.dat");
-			FileOutputStream saveOS = new FileOutputStream(save);
-			ObjectOutputStream gameModelOS = new ObjectOutputStream(saveOS);
-			gameModelOS.writeObject(this);
-			gameModelOS.close();
-		} catch (FileNotFoundException f) {
-			throw new RuntimeException("SER File not found");
+			SaveFormat.write(this, save);
 		} catch (IOException i) {
 			throw new RuntimeException("I/O operation failed");
 		}
@@ -0,0 +1,206 @@
+import java.nio.ByteBuffer;
+import util.BitBoard;
+import util.Cells;
+
+/**
+ * The class <b>GameProtocol</b> reads and writes the frames exchanged by a
+ * <b>GameServer</b> and its clients. A frame is made of an int, the length
+ * of the rest of the frame, a byte, the type of the frame, and the payload of
+ * the type. All the numbers are big-endian, and the dots are sent by their
+ * index (j*size+i).
+ *
+ * The requests of the clients:
+ * - NEW_GAME  int size, long seed: starts the game of the board of a seed;
+ * - SELECT    int index: plays a move, the blue dot answers in the same turn;
+ * - UNDO      undoes the last move;
+ * - REDO      redoes the last undone move.
+ *
+ * The replies of the server, one per request:
+ * - STATE     int size, int blue dot, int steps, byte status, then the
+ *             selected dots packed one bit per dot, (size*size+63)/64 longs;
+ * - DIFF      int blue dot, int steps, byte status, short count, then count
+ *             times int index and byte status (<b>GameModel</b>) of the dots
+ *             changed by the request;
+ * - ERROR     byte code of the error.
+ *
+ * The blue dot is -1 once it has exited the board, and the status of the
+ * game is the one of <b>GameEngine</b>. A new game is answered with a STATE,
+ * and a move, an undo or a redo with the DIFF of the dots it has changed.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class GameProtocol {
+
+    /** The type of the request starting a new game. */
+    public static final byte NEW_GAME = 1;
+
+    /** The type of the request playing a move. */
+    public static final byte SELECT = 2;
+
+    /** The type of the request undoing the last move. */
+    public static final byte UNDO = 3;
+
+    /** The type of the request redoing the last undone move. */
+    public static final byte REDO = 4;
+
+    /** The type of the reply holding the whole state of a game. */
+    public static final byte STATE = 16;
+
+    /** The type of the reply holding the dots changed by a request. */
+    public static final byte DIFF = 17;
+
+    /** The type of the reply to a request that failed. */
+    public static final byte ERROR = 18;
+
+    /** The error of a request that cannot be decoded, e.g., a bad size. */
+    public static final byte BAD_REQUEST = 1;
+
+    /** The error of a move, undo or redo sent before any new game. */
+    public static final byte NO_GAME = 2;
+
+    /** The error of a move on a dot that is not available, or once the game is over. */
+    public static final byte ILLEGAL_MOVE = 3;
+
+    /** The error of an undo or a redo with no move to undo or redo. */
+    public static final byte NO_HISTORY = 4;
+
+    /** The length of the length of a frame, in bytes. */
+    public static final int LENGTH = 4;
+
+    /** The largest length of a request, type included, in bytes. */
+    public static final int MAX_REQUEST = 1 + 4 + 8;
+
+    /** The length of the header of a STATE reply, type included. */
+    private static final int STATE_HEADER = 1 + 4 + 4 + 4 + 1;
+
+    /** The length of the header of a DIFF reply, type included. */
+    private static final int DIFF_HEADER = 1 + 4 + 4 + 1 + 2;
+
+    /** The length of a changed dot of a DIFF reply. */
+    private static final int DIFF_ENTRY = 4 + 1;
+
+    /**
+     * Returns the length of a whole STATE frame.
+     *
+     * @param size The size of the board.
+     * @return The length in bytes, the length of the frame included.
+     */
+    public static int stateLength(int size) {
+        return LENGTH + STATE_HEADER + 8 * ((size * size + 63) >>> 6);
+    }
+
+    /**
+     * Returns the length of a whole DIFF frame.
+     *
+     * @param count The number of changed dots.
+     * @return The length in bytes, the length of the frame included.
+     */
+    public static int diffLength(int count) {
+        return LENGTH + DIFF_HEADER + DIFF_ENTRY * count;
+    }
+
+    /**
+     * Returns the length of the frame at the position of a buffer, without
+     * moving the buffer.
+     *
+     * @param buffer The buffer, ready to be read.
+     * @return The length of the rest of the frame, or -1 if the length of the
+     * frame has not been received yet.
+     */
+    public static int peekLength(ByteBuffer buffer) {
+        return buffer.remaining() < LENGTH ? -1 : buffer.getInt(buffer.position());
+    }
+
+    /**
+     * Writes a NEW_GAME request.
+     *
+     * @param buffer The buffer to write into.
+     * @param size The size of the board.
+     * @param seed The seed of the board.
+     */
+    public static void putNewGame(ByteBuffer buffer, int size, long seed) {
+        buffer.putInt(1 + 4 + 8).put(NEW_GAME).putInt(size).putLong(seed);
+    }
+
+    /**
+     * Writes a SELECT request.
+     *
+     * @param buffer The buffer to write into.
+     * @param index The index of the selected dot.
+     */
+    public static void putSelect(ByteBuffer buffer, int index) {
+        buffer.putInt(1 + 4).put(SELECT).putInt(index);
+    }
+
+    /**
+     * Writes a request without payload, UNDO or REDO.
+     *
+     * @param buffer The buffer to write into.
+     * @param type The type of the request.
+     */
+    public static void putRequest(ByteBuffer buffer, byte type) {
+        buffer.putInt(1).put(type);
+    }
+
+    /**
+     * Writes the STATE reply of a game.
+     *
+     * @param buffer The buffer to write into, with stateLength(size) bytes
+     *               remaining.
+     * @param gameEngine The engine of the game.
+     */
+    public static void putState(ByteBuffer buffer, GameEngine gameEngine) {
+        GameModel gameModel = gameEngine.getGameModel();
+        BitBoard selected = gameModel.getSelected();
+        buffer.putInt(stateLength(gameModel.getSize()) - LENGTH).put(STATE);
+        buffer.putInt(gameModel.getSize());
+        buffer.putInt(gameModel.getCurrentIndex());
+        buffer.putInt(gameModel.getNumberOfSteps());
+        buffer.put((byte) gameEngine.getStatus());
+        for (int w = 0; w < selected.wordCount(); w++) {
+            buffer.putLong(selected.word(w));
+        }
+    }
+
+    /**
+     * Writes the DIFF reply of the last change of a game.
+     *
+     * @param buffer The buffer to write into, with diffLength(changes.size())
+     *               bytes remaining.
+     * @param gameEngine The engine of the game.
+     * @param changes The dots changed, not ChangeSet.ALL.
+     */
+    public static void putDiff(ByteBuffer buffer, GameEngine gameEngine, ChangeSet changes) {
+        GameModel gameModel = gameEngine.getGameModel();
+        int size = gameModel.getSize();
+        buffer.putInt(diffLength(changes.size()) - LENGTH).put(DIFF);
+        buffer.putInt(gameModel.getCurrentIndex());
+        buffer.putInt(gameModel.getNumberOfSteps());
+        buffer.put((byte) gameEngine.getStatus());
+        buffer.putShort((short) changes.size());
+        for (int k = 0; k < changes.size(); k++) {
+            int index = changes.get(k);
+            buffer.putInt(index);
+            buffer.put((byte) gameModel.getCurrentStatus(Cells.column(index, size),
+                    Cells.row(index, size)));
+        }
+    }
+
+    /**
+     * Writes an ERROR reply.
+     *
+     * @param buffer The buffer to write into.
+     * @param code The code of the error.
+     */
+    public static void putError(ByteBuffer buffer, byte code) {
+        buffer.putInt(1 + 1).put(ERROR).put(code);
+    }
+
+    /**
+     * The class <b>GameProtocol</b> cannot be instantiated.
+     */
+    private GameProtocol() {
+    }
+
+}
@@ -0,0 +1,539 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import util.Cells;
+
+/**
+ * The class <b>GameServer</b> hosts games of Circle the Dot for remote
+ * clients, without any user interface. Each connection plays one game at a
+ * time with a headless <b>GameEngine</b>, through the binary frames of
+ * <b>GameProtocol</b>.
+ *
+ * The connections are spread over a few selector loops, one thread each,
+ * with non-blocking sockets: a loop owns its connections and their games, so
+ * the engines are used by a single thread as they require, and an idle
+ * connection costs no thread, only its buffers and its game. The blue dots of
+ * the games of a loop share one <b>EscapeSearch</b>.
+ *
+ * The games of a loop are held by a <b>SessionStore</b>, which spills the
+ * least recently played games to a file once the games in memory exceed the
+ * share of the loop of the budget of the server, and reloads them on their
+ * next request.
+ *
+ * A connection stops being read while the replies it has not received exceed
+ * OUTPUT_LIMIT, so a client that does not read cannot grow the heap of the
+ * server.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class GameServer implements Closeable {
+
+    /** The default port of the server. */
+    public static final int DEFAULT_PORT = 7330;
+
+    /** The largest size of the boards of the games. */
+    public static final int MAX_SIZE = 201;
+
+    /** The smallest size of the boards of the games. */
+    public static final int MIN_SIZE = 4;
+
+    /** The length of the queue of the connections to accept. */
+    private static final int BACKLOG = 4096;
+
+    /** The length in bytes of the replies over which a connection is not read. */
+    private static final int OUTPUT_LIMIT = 1 << 16;
+
+    /** The channel accepting the connections. */
+    private final ServerSocketChannel server;
+
+    /** The selector loops, the first one also accepting the connections. */
+    private final Loop[] loops;
+
+    /** The number of connections accepted, to spread them over the loops. */
+    private long accepted;
+
+    /** False once the server is closed. */
+    private volatile boolean running = true;
+
+    /**
+     * The class <b>Loop</b> runs the connections registered with its
+     * selector, on its own thread.
+     */
+    private class Loop implements Runnable {
+
+        /** The selector of the connections of the loop. */
+        private final Selector selector;
+
+        /** The connections accepted by another loop, to register. */
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+        /** The games of the connections of the loop. */
+        private final SessionStore sessions;
+
+        /**
+         * The constructor of the class <b>Loop</b>.
+         *
+         * @param spill The file the idle games of the loop are spilled to.
+         * @param budget The budget of the games in memory, in bytes.
+         * @throws IOException Thrown if the selector cannot be opened.
+         */
+        private Loop(File spill, long budget) throws IOException {
+            selector = Selector.open();
+            sessions = new SessionStore(spill, budget, new EscapeSearch());
+        }
+
+        /**
+         * Hands a new connection to the loop.
+         *
+         * @param channel The channel of the connection.
+         */
+        private void add(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    for (SocketChannel channel; (channel = pending.poll()) != null; ) {
+                        register(channel);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            connection.ready(key);
+                        } catch (RuntimeException e) {
+                            // a failing game only drops its own connection
+                            connection.close(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    throw new RuntimeException("I/O operation failed", e);
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    close(key);
+                }
+                try {
+                    selector.close();
+                    sessions.close();
+                } catch (IOException e) {
+                    // the loop is stopped anyway
+                }
+            }
+        }
+
+        /**
+         * Helper method: accepts the pending connections and hands them to
+         * the loops in turn.
+         *
+         * @throws IOException Thrown if the server channel fails.
+         */
+        private void accept() throws IOException {
+            for (SocketChannel channel; (channel = server.accept()) != null; ) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                Loop loop = loops[(int) (accepted++ % loops.length)];
+                if (loop == this) {
+                    register(channel);
+                } else {
+                    loop.add(channel);
+                }
+            }
+        }
+
+        /**
+         * Helper method: registers a connection with the selector.
+         *
+         * @param channel The channel of the connection.
+         */
+        private void register(SocketChannel channel) {
+            try {
+                channel.register(selector, SelectionKey.OP_READ, new Connection(channel, sessions));
+            } catch (IOException e) {
+                closeQuietly(channel);
+            }
+        }
+
+    }
+
+    /**
+     * The class <b>Connection</b> holds the buffers and the game of a client.
+     */
+    private static class Connection {
+
+        /** The channel of the client. */
+        private final SocketChannel channel;
+
+        /** The games of the loop. */
+        private final SessionStore sessions;
+
+        /** The requests received, ready to be written into. */
+        private final ByteBuffer input = ByteBuffer.allocate(2 * (GameProtocol.LENGTH
+                + GameProtocol.MAX_REQUEST));
+
+        /** The replies not sent yet, ready to be written into. */
+        private ByteBuffer output = ByteBuffer.allocate(256);
+
+        /** The ID of the session of the game, or -1 before the first new game. */
+        private long session = -1;
+
+        /**
+         * The constructor of the class <b>Connection</b>.
+         *
+         * @param channel The channel of the client.
+         * @param sessions The games of the loop.
+         */
+        private Connection(SocketChannel channel, SessionStore sessions) {
+            this.channel = channel;
+            this.sessions = sessions;
+        }
+
+        /**
+         * Reads the requests and sends the replies the channel is ready for.
+         * The connection is closed if the client has closed it or has sent
+         * a frame that is not a request.
+         *
+         * @param key The key of the channel.
+         */
+        private void ready(SelectionKey key) {
+            try {
+                if (key.isReadable() && !read()) {
+                    close(key);
+                    return;
+                }
+                output.flip();
+                channel.write(output);
+                output.compact();
+                int ops = output.position() > 0 ? SelectionKey.OP_WRITE : 0;
+                if (output.position() < OUTPUT_LIMIT) {
+                    ops |= SelectionKey.OP_READ;
+                }
+                key.interestOps(ops);
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+
+        /**
+         * Helper method: reads and plays the requests received.
+         *
+         * @return false if the connection must be closed.
+         * @throws IOException Thrown if the channel fails.
+         */
+        private boolean read() throws IOException {
+            if (channel.read(input) < 0) {
+                return false;
+            }
+            input.flip();
+            int length;
+            while ((length = GameProtocol.peekLength(input)) != -1) {
+                if (length < 1 || length > GameProtocol.MAX_REQUEST) {
+                    return false;
+                }
+                if (input.remaining() < GameProtocol.LENGTH + length) {
+                    break;
+                }
+                input.position(input.position() + GameProtocol.LENGTH);
+                int end = input.position() + length;
+                play(input.get(), length - 1);
+                input.position(end);
+            }
+            input.compact();
+            return true;
+        }
+
+        /**
+         * Helper method: plays a request and writes its reply.
+         *
+         * The game is fetched from the sessions of the loop, which reload
+         * it if it has been spilled, and weighed again once changed.
+         *
+         * @param type The type of the request.
+         * @param length The length of its payload.
+         * @throws IOException Thrown if the sessions cannot be spilled or
+         * reloaded.
+         */
+        private void play(byte type, int length) throws IOException {
+            if (type == GameProtocol.NEW_GAME) {
+                if (length < 4 + 8) {
+                    error(GameProtocol.BAD_REQUEST);
+                    return;
+                }
+                int size = input.getInt();
+                long seed = input.getLong();
+                if (size < MIN_SIZE || size > MAX_SIZE) {
+                    error(GameProtocol.BAD_REQUEST);
+                    return;
+                }
+                sessions.remove(session);
+                session = sessions.create(size, seed);
+                state(sessions.get(session));
+                return;
+            }
+
+            GameEngine gameEngine = session == -1 ? null : sessions.get(session);
+            switch (type) {
+                case GameProtocol.SELECT:
+                    if (length < 4) {
+                        error(GameProtocol.BAD_REQUEST);
+                    } else if (gameEngine == null) {
+                        error(GameProtocol.NO_GAME);
+                    } else {
+                        select(gameEngine, input.getInt());
+                    }
+                    return;
+                case GameProtocol.UNDO:
+                case GameProtocol.REDO:
+                    if (gameEngine == null) {
+                        error(GameProtocol.NO_GAME);
+                    } else if (type == GameProtocol.UNDO ? gameEngine.isUndoStackEmpty()
+                            : gameEngine.isRedoStackEmpty()) {
+                        error(GameProtocol.NO_HISTORY);
+                    } else {
+                        if (type == GameProtocol.UNDO) {
+                            gameEngine.undo();
+                        } else {
+                            gameEngine.redo();
+                        }
+                        diff(gameEngine);
+                    }
+                    return;
+                default:
+                    error(GameProtocol.BAD_REQUEST);
+            }
+        }
+
+        /**
+         * Helper method: plays a move on a dot.
+         *
+         * @param gameEngine The engine of the game.
+         * @param index The index of the dot.
+         * @throws IOException Thrown if the sessions cannot be spilled.
+         */
+        private void select(GameEngine gameEngine, int index) throws IOException {
+            GameModel gameModel = gameEngine.getGameModel();
+            int size = gameModel.getSize();
+            if (index < 0 || index >= size * size || gameEngine.getStatus() != GameEngine.PLAYING
+                    || gameModel.getCurrentStatus(Cells.column(index, size), Cells.row(index, size)) != GameModel.AVAILABLE) {
+                error(GameProtocol.ILLEGAL_MOVE);
+                return;
+            }
+            gameEngine.play(Cells.column(index, size), Cells.row(index, size));
+            diff(gameEngine);
+        }
+
+        /**
+         * Helper method: writes the STATE reply of a game.
+         *
+         * @param gameEngine The engine of the game.
+         */
+        private void state(GameEngine gameEngine) {
+            reserve(GameProtocol.stateLength(gameEngine.getGameModel().getSize()));
+            GameProtocol.putState(output, gameEngine);
+        }
+
+        /**
+         * Helper method: writes the DIFF reply of the last change of a game,
+         * and weighs the game again.
+         *
+         * @param gameEngine The engine of the game.
+         * @throws IOException Thrown if the sessions cannot be spilled.
+         */
+        private void diff(GameEngine gameEngine) throws IOException {
+            ChangeSet changes = gameEngine.getChanges();
+            if (changes.isAll()) {
+                state(gameEngine);
+            } else {
+                reserve(GameProtocol.diffLength(changes.size()));
+                GameProtocol.putDiff(output, gameEngine, changes);
+            }
+            sessions.update(session);
+        }
+
+        /**
+         * Helper method: closes the connection and ends its session.
+         *
+         * @param key The key of the channel.
+         */
+        private void close(SelectionKey key) {
+            sessions.remove(session);
+            GameServer.close(key);
+        }
+
+        /**
+         * Helper method: writes an ERROR reply.
+         *
+         * @param code The code of the error.
+         */
+        private void error(byte code) {
+            reserve(GameProtocol.LENGTH + 2);
+            GameProtocol.putError(output, code);
+        }
+
+        /**
+         * Helper method: grows the output buffer to hold some more bytes.
+         *
+         * @param length The number of bytes to write.
+         */
+        private void reserve(int length) {
+            if (output.remaining() < length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * output.capacity(),
+                        output.position() + length));
+                output.flip();
+                output = grown.put(output);
+            }
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>GameServer</b>, keeping all the games
+     * in memory. The server accepts connections once it is started.
+     *
+     * @param port The port to listen to, 0 for any free port.
+     * @param threads The number of selector loops.
+     * @throws IOException Thrown if the port cannot be bound.
+     */
+    public GameServer(int port, int threads) throws IOException {
+        this(port, threads, Long.MAX_VALUE, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * The constructor of the class <b>GameServer</b>. The server accepts
+     * connections once it is started.
+     *
+     * @param port The port to listen to, 0 for any free port.
+     * @param threads The number of selector loops.
+     * @param budget The budget of the games in memory, in bytes, shared
+     *               equally by the loops.
+     * @param directory The directory of the spill files of the loops.
+     * @throws IOException Thrown if the port cannot be bound.
+     * @throws IllegalArgumentException Thrown if there is no loop.
+     */
+    public GameServer(int port, int threads, long budget, File directory) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of loops " + threads);
+        }
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), BACKLOG);
+        server.configureBlocking(false);
+        int bound = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        loops = new Loop[threads];
+        for (int k = 0; k < threads; k++) {
+            File spill = new File(directory, "ctd-sessions-" + bound + "-" + k + ".dat");
+            loops[k] = new Loop(spill, budget / threads);
+        }
+        server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts the selector loops, each on a daemon thread.
+     */
+    public void start() {
+        for (int k = 0; k < loops.length; k++) {
+            Thread thread = new Thread(loops[k], "server-" + k);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * An instance method for getting the port the server listens to.
+     *
+     * @return The local port.
+     * @throws IOException Thrown if the server channel is closed.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Stops the loops and closes all the connections.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        for (Loop loop : loops) {
+            loop.selector.wakeup();
+        }
+        server.close();
+    }
+
+    /**
+     * Helper method: cancels a key and closes its channel.
+     *
+     * @param key The key of the channel.
+     */
+    private static void close(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    /**
+     * Helper method: closes a channel, ignoring the errors.
+     *
+     * @param channel The channel to close.
+     */
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the channel is dropped anyway
+        }
+    }
+
+    /**
+     * The main method runs a server until the process is stopped.
+     *
+     * @param args Command line program arguments.
+     *             $ java GameServer _PORT_ _THREADS_ _BUDGET_MB_
+     * @throws IOException Thrown if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        long budget = args.length > 2 ? Long.parseLong(args[2]) << 20 : Long.MAX_VALUE;
+
+        GameServer gameServer = new GameServer(port, threads, budget,
+                new File(System.getProperty("java.io.tmpdir")));
+        gameServer.start();
+        System.out.println("Listening on port " + gameServer.getPort() + " with "
+                + threads + " loops");
+        while (true) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                gameServer.close();
+                return;
+            }
+        }
+    }
+
+}
@@ -2,32 +2,45 @@ import javax.swing.JFrame;
 import javax.swing.JButton;
 import javax.swing.JPanel;
 import javax.swing.BorderFactory;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 import java.awt.Color;
 import java.awt.BorderLayout;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
  * The class <b>GameView</b> provides the current view of the entire Game. It
  * extends the swing component <b>JFrame</b> and lays out an instance of the
- * class <b>BoardView</b> and two instances of JButton for redo and undo
- * functionalities. The action listener for the buttons is the controller.
+ * class <b>BoardView</b>, or of the class <b>BoardCanvas</b> in a scroll pane
+ * for the boards larger than LARGE_BOARD, and instances of JButton for redo,
+ * undo and hint
+ * functionalities. The action listener for the buttons is the controller. The
+ * view observes the game's engine and is updated every time the game changes.
+ *
+ * The engine runs on the game thread of the controller, so the view never
+ * reads it from the Event Dispatch Thread: when the game changes, the view
+ * takes an immutable <b>Snapshot</b> of the game and renders it later on the
+ * Event Dispatch Thread. Snapshots taken faster than they can be rendered
+ * are coalesced, only the latest one being rendered, and only the dots
+ * changed since the last render being updated.
  *
  * @author  Amr ElShafei
  * @version 2.0
  * @since   March 28th, 2016
  */
-public class GameView extends JFrame {
+public class GameView extends JFrame implements GameListener {
 
     private static final long serialVersionUID = 5992657131118857705L;
 
-    /** The reference to the view of the board. */
-    private BoardView board;
+    /** The size of the largest board laid out with a button per dot. */
+    public static final int LARGE_BOARD = 60;
 
-    /** The reference to the game's model. */
-    private GameModel gameModel;
+    /** The reference to the view of the board. */
+    private BoardRenderer board;
 
-    /** The reference to the game's controller. */
-    private GameController gameController;
+    /** True once the first state of the game has been rendered. */
+    private boolean rendered;
 
     /** The redo button of the game. */
     private JButton buttonRedo;
@@ -35,22 +48,62 @@ public class GameView extends JFrame {
     /** The undo button of the game. */
     private JButton buttonUndo;
 
+    /** The latest state of the game waiting to be rendered, or null. */
+    private final AtomicReference<State> pending = new AtomicReference<>();
+
     /**
-     * The constructor for the custom swing component <b>GameView</b>.
+     * The class <b>State</b> holds what the view renders of the game.
+     */
+    private static class State {
+
+        /** The snapshot of the game. */
+        private final Snapshot snapshot;
+
+        /** True if there is a move to undo. */
+        private final boolean undo;
+
+        /** True if there is a move to redo. */
+        private final boolean redo;
+
+        /** The dots changed since the last render. */
+        private final ChangeSet changes;
+
+        /**
+         * The constructor of the class <b>State</b>.
+         */
+        private State(Snapshot snapshot, boolean undo, boolean redo, ChangeSet changes) {
+            this.snapshot = snapshot;
+            this.undo = undo;
+            this.redo = redo;
+            this.changes = changes;
+        }
+
+    }
+
+    /**
+     * The constructor for the custom swing component <b>GameView</b>. It is
+     * called on the Event Dispatch Thread, and only needs the size of the
+     * board, so it can be built while the model is loaded. The controller
+     * registers the view as an observer of the engine.
      *
-     *  @param gameModel The model of the game.
+     * @param size The size of the game's board.
      * @param gameController the controller of the game.
      */
-    public GameView(GameModel gameModel, GameController gameController) {
+    public GameView(int size, GameController gameController) {
         super("Circle the Dot");
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setBackground(Color.WHITE);
 
-        this.gameModel = gameModel;
-        this.gameController = gameController;
-        board = new BoardView(gameModel, gameController);
-        add(board, BorderLayout.CENTER);
+        if (size > LARGE_BOARD) {
+            BoardCanvas canvas = new BoardCanvas(size, gameController);
+            board = canvas;
+            add(new JScrollPane(canvas), BorderLayout.CENTER);
+        } else {
+            BoardView view = new BoardView(size, gameController);
+            board = view;
+            add(view, BorderLayout.CENTER);
+        }
 
         buttonRedo = new JButton("Redo");
         buttonRedo.addActionListener(gameController);
@@ -64,6 +117,9 @@ public class GameView extends JFrame {
         buttonUndo = new JButton("Undo");
         buttonUndo.addActionListener(gameController);
 
+        JButton buttonHint = new JButton("Hint");
+        buttonHint.addActionListener(gameController);
+
         JPanel control = new JPanel();
         control.setBackground(Color.WHITE);
         control.setBorder(BorderFactory.createEmptyBorder(0,0,10,0));
@@ -71,10 +127,11 @@ public class GameView extends JFrame {
         control.add(buttonReset);
         control.add(buttonExit);
         control.add(buttonUndo);
+        control.add(buttonHint);
         add(control, BorderLayout.SOUTH);
 
         pack();
-        setResizable(false);
+        setResizable(board instanceof BoardCanvas);
         setVisible(true);
 
         setButtonRedoVisible(false);
@@ -86,19 +143,10 @@ public class GameView extends JFrame {
      *
      * @return The board view of the game.
      */
-    public BoardView getBoard() {
+    public BoardRenderer getBoard() {
         return board;
     }
 
-    /**
-     * An instance method for getting the reference to the game's model.
-     *
-     * @return The reference to the game's model.
-     */
-    public GameModel getGameModel() {
-        return gameModel;
-    }
-
     /**
      * Controls the visibility of redo button.
      *
@@ -120,12 +168,53 @@ public class GameView extends JFrame {
     }
 
     /**
-     * Updates the game's view, i.e., board, and undo and redo buttons.
+     * Updates the game's view, i.e., board, and undo and redo buttons. It
+     * is called on the Event Dispatch Thread.
+     *
+     * @param snapshot The snapshot of the game to render.
+     * @param undo True if there is a move to undo.
+     * @param redo True if there is a move to redo.
+     * @param changes The dots changed since the last update.
+     */
+    public void update(Snapshot snapshot, boolean undo, boolean redo, ChangeSet changes) {
+        setButtonRedoVisible(redo);
+        setButtonUndoVisible(undo);
+        board.update(snapshot, changes);
+    }
+
+    /**
+     * Called back on the game thread: takes the state of the game, and
+     * renders it on the Event Dispatch Thread unless a render is already
+     * waiting, which will then render this newer state and the dots changed
+     * by both.
+     */
+    @Override
+    public void gameChanged(GameEngine gameEngine) {
+        Snapshot snapshot = gameEngine.getSnapshot();
+        boolean undo = !gameEngine.isUndoStackEmpty();
+        boolean redo = !gameEngine.isRedoStackEmpty();
+        ChangeSet changes = gameEngine.getChanges();
+        State previous = pending.getAndUpdate(waiting -> new State(snapshot, undo, redo,
+                waiting == null ? changes : waiting.changes.union(changes)));
+        if (previous == null) {
+            SwingUtilities.invokeLater(this::render);
+        }
+    }
+
+    /**
+     * Helper method: renders the latest state of the game. The time to the
+     * first frame is reported once the first state has been painted.
      */
-    public void update() {
-        setButtonRedoVisible(!gameController.isRedoStackEmpty());
-        setButtonUndoVisible(!gameController.isUndoStackEmpty());
-        board.update();
+    private void render() {
+        State state = pending.getAndSet(null);
+        if (state != null) {
+            update(state.snapshot, state.undo, state.redo, state.changes);
+            if (!rendered) {
+                rendered = true;
+                // queued after the paint of the board
+                SwingUtilities.invokeLater(CircleTheDot::firstFrame);
+            }
+        }
     }
 
 }
@@ -0,0 +1,53 @@
+import java.util.Random;
+import util.Topology;
+
+/**
+ * The class <b>GreedyPlayer</b> is a simple simulated player that blocks the
+ * next step of the blue dot: it selects the available neighbour of the blue
+ * dot that is the closest to the border, ties being broken at random.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class GreedyPlayer implements PlayerStrategy {
+
+    @Override
+    public int chooseDot(GameModel gameModel, Random generator) {
+        DistanceField field = gameModel.getDistanceField();
+        int size = gameModel.getSize();
+        Topology topology = gameModel.getTopology();
+        int dot = gameModel.getCurrentIndex();
+
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        int ties = 0;
+        for (int slot = topology.start(dot); slot < topology.end(dot); slot++) {
+            int index = topology.neighbour(slot);
+            if (!gameModel.isAvailable(index)) {
+                continue;
+            }
+            int distance = field.getDistance(index);
+            if (best == -1 || distance < bestDistance) {
+                best = index;
+                bestDistance = distance;
+                ties = 1;
+            } else if (distance == bestDistance && generator.nextInt(++ties) == 0) {
+                best = index;
+            }
+        }
+        if (best != -1) {
+            return best;
+        }
+
+        // the blue dot is surrounded, any available dot will do
+        int start = generator.nextInt(size * size);
+        for (int k = 0; k < size * size; k++) {
+            int index = (start + k) % (size * size);
+            if (gameModel.isAvailable(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,296 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import javax.swing.SwingUtilities;
+import util.Topology;
+
+/**
+ * The class <b>HintService</b> suggests the dot the player should select. The
+ * candidates are the dots of the shortest escape routes of the blue dot, the
+ * only ones whose selection changes its next steps. They are ranked by:
+ * - the escape distance of the blue dot once the dot is selected, the longer
+ *   the better. Only the dots on every shortest route can make it longer, so
+ *   only these are selected, one at a time, on a working copy of the model
+ *   whose <b>DistanceField</b> is repaired rather than computed again;
+ * - the number of shortest routes going through the dot, the more the better,
+ *   as selecting it removes them all. It is counted once for all the dots,
+ *   as the routes from the blue dot to the dot times the routes from the dot
+ *   to the border.
+ *
+ * The hints are computed by a single background thread, off the Event
+ * Dispatch Thread, and delivered on the Event Dispatch Thread. A new request,
+ * or any change of the game, cancels the pending one. The working copy is
+ * kept between requests, so its distance field only needs the dots changed
+ * since the last hint.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class HintService implements GameListener {
+
+    /** The thread computing the hints. */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The pending request, or null. */
+    private Future<?> pending;
+
+    /** The number of the last request, or cancellation. */
+    private int generation;
+
+    /** The working copy of the model, only used by the thread of the service. */
+    private GameModel working;
+
+    /** The distance from the blue dot of every dot, -1 if not reached. */
+    private int[] reach;
+
+    /** The queue of the search from the blue dot. */
+    private int[] queue;
+
+    /** The number of shortest routes from the blue dot to every dot. */
+    private double[] routesTo;
+
+    /** The number of shortest routes from every dot to the border. */
+    private double[] routesFrom;
+
+    /**
+     * The sort keys of the candidates: the escape distance of the blue dot
+     * once the candidate is selected, the number of shortest routes through
+     * the candidate, both from the largest, and the position of the
+     * candidate in the queue.
+     */
+    private long[] order;
+
+    /**
+     * Requests a hint for the current position of a game. The position is
+     * copied, and the hint is computed in the background. The previous
+     * request, if still pending, is cancelled.
+     *
+     * @param gameModel The model of the game.
+     * @param callback Called on the Event Dispatch Thread with the index
+     *                 (j*size+i) of the suggested dot, or -1 if there is none,
+     *                 unless the request is cancelled first.
+     */
+    public synchronized void request(GameModel gameModel, IntConsumer callback) {
+        cancel();
+        GameModel copy = gameModel.clone();
+        int requested = generation;
+        pending = executor.submit(() -> {
+            int[] ranked = rank(copy);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            int hint = ranked.length > 0 ? ranked[0] : -1;
+            SwingUtilities.invokeLater(() -> {
+                if (isCurrent(requested)) {
+                    callback.accept(hint);
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancels the pending request, if any.
+     */
+    public synchronized void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    /**
+     * Stops the thread of the service.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void gameChanged(GameEngine gameEngine) {
+        cancel();
+    }
+
+    /**
+     * Ranks the candidate dots of a position, the best first. It is called
+     * by the thread of the service, and can be called directly by a single
+     * other thread when the service is not used in the background. If the
+     * thread is interrupted, it stops early and returns no candidate.
+     *
+     * @param gameModel The model of the game. It is not changed.
+     * @return The indices (j*size+i) of the candidates, the best first.
+     */
+    public int[] rank(GameModel gameModel) {
+        if (working == null || working.getSize() != gameModel.getSize()) {
+            working = gameModel.clone();
+            int cells = gameModel.getSize() * gameModel.getSize();
+            reach = new int[cells];
+            queue = new int[cells];
+            routesTo = new double[cells];
+            routesFrom = new double[cells];
+            order = new long[cells];
+        } else {
+            working.restore(gameModel);
+        }
+        int size = working.getSize();
+        int dot = working.getCurrentIndex();
+        if (dot == -1) {
+            return new int[0];
+        }
+        DistanceField field = working.getDistanceField();
+        int escape = escapeDistance(field, dot);
+        if (escape == DistanceField.INFINITY) {
+            return new int[0];
+        }
+
+        // the dots of the shortest routes, in increasing distance from the dot
+        int count = routes(field, dot, escape);
+        double total = 0;
+        for (int c = 0; c < count; c++) {
+            if (reach[queue[c]] == 1) {
+                total += routesFrom[queue[c]];
+            }
+        }
+
+        for (int c = 0; c < count; c++) {
+            int cell = queue[c];
+            int distance = escape;
+            double routes = routesTo[cell] * routesFrom[cell];
+            if (routes >= total * (1 - 1e-9)) {
+                // the dot is on every shortest route
+                if (Thread.currentThread().isInterrupted()) {
+                    return new int[0];
+                }
+                working.select(cell % size, cell / size);
+                distance = escapeDistance(field, dot);
+                working.unselect(cell % size, cell / size);
+            }
+            order[c] = key(distance, escape, routes) | c;
+        }
+        Arrays.sort(order, 0, count);
+
+        int[] ranked = new int[count];
+        for (int c = 0; c < count; c++) {
+            ranked[c] = queue[(int) (order[c] & Integer.MAX_VALUE)];
+        }
+        return ranked;
+    }
+
+    /**
+     * Helper method: checks if a request is still the last one.
+     *
+     * @param requested The number of the request.
+     * @return true if no other request or cancellation came since.
+     */
+    private synchronized boolean isCurrent(int requested) {
+        return generation == requested;
+    }
+
+    /**
+     * Helper method: packs the ranking of a candidate into the high bits of
+     * its sort key, so the best candidates have the smallest keys: 7 bits of
+     * the lengthening of the escape, capped, the blue dot trapped last, then
+     * the 24 high bits of the number of routes as a float, which orders the
+     * positive numbers as their bits do.
+     *
+     * @param distance The escape distance once the candidate is selected.
+     * @param escape The escape distance of the blue dot.
+     * @param routes The number of shortest routes through the candidate.
+     * @return The sort key, without the position of the candidate.
+     */
+    private static long key(int distance, int escape, double routes) {
+        long lengthening = distance == DistanceField.INFINITY ? 127
+                : Math.min(distance - escape, 126);
+        long bits = Float.floatToIntBits((float) routes) >>> 7;
+        return (127 - lengthening) << 56 | (0xFFFFFFL - bits) << 32;
+    }
+
+    /**
+     * Helper method: returns the number of steps of the blue dot to exit
+     * the board, i.e., one more than the distance of its closest available
+     * neighbour.
+     *
+     * @param field The distance field of the working copy.
+     * @param dot The index of the blue dot.
+     * @return the escape distance, or INFINITY if the blue dot is trapped.
+     */
+    private int escapeDistance(DistanceField field, int dot) {
+        Topology topology = working.getTopology();
+        int best = DistanceField.INFINITY;
+        for (int slot = topology.start(dot); slot < topology.end(dot); slot++) {
+            int n = topology.neighbour(slot);
+            if (working.isAvailable(n)) {
+                best = Math.min(best, field.getDistance(n));
+            }
+        }
+        return best == DistanceField.INFINITY ? best : best + 1;
+    }
+
+    /**
+     * Helper method: lists the dots of the shortest routes of the blue dot
+     * into the queue, and counts the routes to and from each of them.
+     *
+     * @param field The distance field of the working copy.
+     * @param dot The index of the blue dot.
+     * @param escape The escape distance of the blue dot.
+     * @return The number of dots of the routes.
+     */
+    private int routes(DistanceField field, int dot, int escape) {
+        Topology topology = working.getTopology();
+
+        // a search from the blue dot, keeping the dots of the routes only
+        Arrays.fill(reach, -1);
+        reach[dot] = 0;
+        routesTo[dot] = 1;
+        int head = 0;
+        int tail = 0;
+        int u = dot;
+        while (true) {
+            for (int slot = topology.start(u); slot < topology.end(u); slot++) {
+                int n = topology.neighbour(slot);
+                int distance = field.getDistance(n);
+                if (distance == DistanceField.INFINITY || reach[u] + 1 + distance != escape
+                        || !working.isAvailable(n)) {
+                    continue;
+                }
+                if (reach[n] == -1) {
+                    reach[n] = reach[u] + 1;
+                    routesTo[n] = 0;
+                    queue[tail++] = n;
+                }
+                if (reach[n] == reach[u] + 1) {
+                    routesTo[n] += routesTo[u];
+                }
+            }
+            if (head == tail) {
+                break;
+            }
+            u = queue[head++];
+        }
+
+        // the routes to the border, from the border back to the blue dot
+        for (int c = tail - 1; c >= 0; c--) {
+            int v = queue[c];
+            if (field.getDistance(v) == 0) {
+                routesFrom[v] = 1;
+                continue;
+            }
+            routesFrom[v] = 0;
+            for (int slot = topology.start(v); slot < topology.end(v); slot++) {
+                int n = topology.neighbour(slot);
+                if (reach[n] == reach[v] + 1 && field.getDistance(n) == field.getDistance(v) - 1) {
+                    routesFrom[v] += routesFrom[n];
+                }
+            }
+        }
+        return tail;
+    }
+
+}
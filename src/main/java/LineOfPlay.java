@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Random;
+import util.BitBoard;
+
+/**
+ * The class <b>LineOfPlay</b> reads and writes the line of play of a game,
+ * as stored by <b>GameArchive</b> and <b>SessionStore</b>: the start of the
+ * game, then its moves. The start is made of:
+ *
+ * - int    size of the board
+ * - long   seed of the board
+ * - int    index (j*size+i) of the blue dot at the start of the game
+ * - int    number of steps at the start of the game
+ * - int    number of words of selected dots, 0 if the board is the board
+ *          of the seed
+ * - long[] the selected dots at the start of the game
+ *
+ * and each move of:
+ *
+ * - int    index of the selected dot
+ * - int    index of the blue dot after the move, or -1
+ * - byte   status of the game after the move, as defined by <b>GameEngine</b>
+ *
+ * A game dealt from its seed is described by its size, its seed and its
+ * moves, so its selected dots are not stored.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class LineOfPlay {
+
+    /** The length of the start of a line, selected dots excluded, in bytes. */
+    public static final int START = 4 + 8 + 4 + 4 + 4;
+
+    /** The length of a move, in bytes. */
+    public static final int MOVE = 4 + 4 + 1;
+
+    /**
+     * Returns the number of words of selected dots stored for the start of
+     * a game.
+     *
+     * @param first The snapshot of the start of the game.
+     * @return 0 if the board is the board of the seed, else the number of
+     * words of the board.
+     */
+    public static int words(Snapshot first) {
+        return first.isSeeded() ? 0 : (first.getSize() * first.getSize() + 63) >>> 6;
+    }
+
+    /**
+     * Returns the length of a line of play.
+     *
+     * @param first The snapshot of the start of the game.
+     * @param moves The number of moves.
+     * @return The length in bytes.
+     */
+    public static int length(Snapshot first, int moves) {
+        return START + 8 * words(first) + MOVE * moves;
+    }
+
+    /**
+     * Writes the start of a game.
+     *
+     * @param buffer The buffer to write into.
+     * @param first The snapshot of the start of the game.
+     */
+    public static void putStart(ByteBuffer buffer, Snapshot first) {
+        int size = first.getSize();
+        int words = words(first);
+        buffer.putInt(size);
+        buffer.putLong(first.getSeed());
+        buffer.putInt(first.getCurrentIndex());
+        buffer.putInt(first.getNumberOfSteps());
+        buffer.putInt(words);
+        if (words > 0) {
+            BitBoard selected = new BitBoard(size * size);
+            first.getSelected().copyTo(selected);
+            for (int w = 0; w < words; w++) {
+                buffer.putLong(selected.word(w));
+            }
+        }
+    }
+
+    /**
+     * Writes the moves of a line, from its second snapshot on.
+     *
+     * @param buffer The buffer to write into.
+     * @param line The snapshots of the line, the start of the game first.
+     */
+    public static void putMoves(ByteBuffer buffer, List<Snapshot> line) {
+        for (Snapshot s : line.subList(1, line.size())) {
+            buffer.putInt(s.getMove());
+            buffer.putInt(s.getCurrentIndex());
+            buffer.put((byte) s.getStatus());
+        }
+    }
+
+    /**
+     * Reads the start of a game. The selected dots are read from the buffer,
+     * or generated from the seed.
+     *
+     * @param buffer The buffer, positioned on the start of the game.
+     * @return The model of the game before its first move.
+     */
+    public static GameModel getStart(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        long seed = buffer.getLong();
+        int startDot = buffer.getInt();
+        int startSteps = buffer.getInt();
+        int words = buffer.getInt();
+        if (words == 0) {
+            return new GameModel(size, seed);
+        }
+        BitBoard selected = new BitBoard(size * size);
+        for (int w = 0; w < words; w++) {
+            selected.setWord(w, buffer.getLong());
+        }
+        return new GameModel(size, new Random(), seed, selected, startDot, startSteps);
+    }
+
+    /**
+     * Skips the start of a game, without reading its selected dots.
+     *
+     * @param buffer The buffer, positioned on the start of the game.
+     * @return The size of the board.
+     */
+    public static int skipStart(ByteBuffer buffer) {
+        int start = buffer.position();
+        int words = buffer.getInt(start + START - 4);
+        buffer.position(start + START + 8 * words);
+        return buffer.getInt(start);
+    }
+
+    /**
+     * Reads the moves of a line, played from the snapshot of its start.
+     *
+     * @param buffer The buffer, positioned on the first move.
+     * @param first The snapshot of the start of the game.
+     * @param moves The number of moves.
+     * @return The snapshot of the last move.
+     */
+    public static Snapshot getMoves(ByteBuffer buffer, Snapshot first, int moves) {
+        Snapshot last = first;
+        for (int k = 0; k < moves; k++) {
+            last = last.next(buffer.getInt(), buffer.getInt(), buffer.get());
+        }
+        return last;
+    }
+
+    /**
+     * Writes a whole buffer at a position of a file.
+     *
+     * @param channel The channel of the file.
+     * @param buffer The buffer to write.
+     * @param position The position in the file.
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    public static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Fills a buffer from a position of a file.
+     *
+     * @param channel The channel of the file.
+     * @param buffer The buffer to fill.
+     * @param position The position in the file.
+     * @throws IOException Thrown if the file ends before the buffer is full.
+     */
+    public static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Truncated file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * The class <b>LineOfPlay</b> cannot be instantiated.
+     */
+    private LineOfPlay() {
+    }
+
+}
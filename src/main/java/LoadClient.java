@@ -0,0 +1,386 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+import util.BitBoard;
+import util.Topology;
+
+/**
+ * The class <b>LoadClient</b> generates load on a <b>GameServer</b>: it opens
+ * many connections from a single selector thread, and each of them plays a
+ * number of games, sending its next request as soon as the reply of the
+ * previous one is received. Each connection mirrors its board from the STATE
+ * and DIFF replies, selects a random available neighbour of the blue dot,
+ * and undoes and redoes some of its moves.
+ *
+ * The report gives the throughput of the requests and their round-trip
+ * latency, as seen by the client.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class LoadClient {
+
+    /** One move in UNDO_RATE is undone and redone. */
+    private static final int UNDO_RATE = 8;
+
+    /** The address of the server. */
+    private final InetSocketAddress address;
+
+    /** The size of the boards. */
+    private final int size;
+
+    /** The number of games played by each connection. */
+    private final int games;
+
+    /** The random generator of the seeds of the connections. */
+    private final Random generator;
+
+    /**
+     * The class <b>Report</b> that holds the results of a run.
+     */
+    public static class Report {
+
+        /** The number of connections opened. */
+        private int connections;
+
+        /** The number of games played to the end. */
+        private long games;
+
+        /** The number of games won by the clients. */
+        private long wins;
+
+        /** The number of requests answered. */
+        private long requests;
+
+        /** The number of requests answered with an ERROR. */
+        private long errors;
+
+        /** The total round-trip time of the requests, in nanoseconds. */
+        private long latency;
+
+        /** The longest round-trip time of a request, in nanoseconds. */
+        private long maxLatency;
+
+        /** The time taken by the run, in nanoseconds. */
+        private long elapsed;
+
+        /**
+         * An instance method for getting the number of games played.
+         *
+         * @return The number of games.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * An instance method for getting the number of requests answered.
+         *
+         * @return The number of requests.
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * An instance method for getting the number of requests that failed.
+         *
+         * @return The number of ERROR replies.
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * An instance method for getting the throughput of the run.
+         *
+         * @return The number of requests answered per second.
+         */
+        public double getRequestsPerSecond() {
+            return elapsed == 0 ? 0 : requests * 1e9 / elapsed;
+        }
+
+        /**
+         * An instance method for getting the mean round-trip time.
+         *
+         * @return The mean round-trip time of a request, in microseconds.
+         */
+        public double getMeanLatency() {
+            return requests == 0 ? 0 : latency / 1e3 / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d connections, %d games, win rate %.4f, %d requests, %d errors, "
+                    + "%.0f requests/sec, latency %.0f us mean, %.0f us max", connections, games,
+                    games == 0 ? 0 : (double) wins / games, requests, errors,
+                    getRequestsPerSecond(), getMeanLatency(), maxLatency / 1e3);
+        }
+
+    }
+
+    /**
+     * The class <b>Client</b> holds the buffers and the mirrored board of a
+     * connection.
+     */
+    private class Client {
+
+        /** The channel of the connection. */
+        private final SocketChannel channel;
+
+        /** The random generator of the moves. */
+        private final Random random;
+
+        /** The replies received, ready to be written into. */
+        private ByteBuffer input = ByteBuffer.allocate(256);
+
+        /** The next request, ready to be written into. */
+        private final ByteBuffer output = ByteBuffer.allocate(GameProtocol.LENGTH
+                + GameProtocol.MAX_REQUEST);
+
+        /** The selected dots of the mirrored board. */
+        private BitBoard selected;
+
+        /** The index of the blue dot of the mirrored board, or -1. */
+        private int dot;
+
+        /** The number of steps of the mirrored game. */
+        private int steps;
+
+        /** True if the last move has been undone and must be redone. */
+        private boolean undone;
+
+        /** The number of games left to play. */
+        private int left = games;
+
+        /** The time the pending request was sent, in nanoseconds. */
+        private long sent;
+
+        /**
+         * The constructor of the class <b>Client</b>.
+         *
+         * @param channel The channel of the connection.
+         * @param seed The seed of the moves and of the boards.
+         */
+        private Client(SocketChannel channel, long seed) {
+            this.channel = channel;
+            this.random = new Random(seed);
+        }
+
+        /**
+         * Reads the replies and sends the next request. The connection is
+         * closed once its games are played.
+         *
+         * @param key The key of the channel.
+         * @param report The report of the run.
+         * @return false once the connection is closed.
+         * @throws IOException Thrown if the connection fails.
+         */
+        private boolean ready(SelectionKey key, Report report) throws IOException {
+            if (key.isConnectable()) {
+                channel.finishConnect();
+                channel.socket().setTcpNoDelay(true);
+                GameProtocol.putNewGame(output, size, random.nextLong());
+            } else if (key.isReadable()) {
+                if (channel.read(input) < 0) {
+                    throw new IOException("Connection closed by the server");
+                }
+                input.flip();
+                int length;
+                while ((length = GameProtocol.peekLength(input)) != -1
+                        && input.remaining() >= GameProtocol.LENGTH + length) {
+                    long latency = System.nanoTime() - sent;
+                    report.requests++;
+                    report.latency += latency;
+                    report.maxLatency = Math.max(report.maxLatency, latency);
+                    input.position(input.position() + GameProtocol.LENGTH);
+                    int end = input.position() + length;
+                    reply(input.get(), report);
+                    input.position(end);
+                }
+                if (length != -1 && GameProtocol.LENGTH + length > input.capacity()) {
+                    ByteBuffer grown = ByteBuffer.allocate(GameProtocol.LENGTH + length);
+                    input = grown.put(input);
+                } else {
+                    input.compact();
+                }
+            }
+            if (output.position() == 0) {
+                return left > 0;
+            }
+            output.flip();
+            sent = System.nanoTime();
+            channel.write(output);
+            output.clear();
+            key.interestOps(SelectionKey.OP_READ);
+            return true;
+        }
+
+        /**
+         * Helper method: mirrors a reply and writes the next request.
+         *
+         * @param type The type of the reply.
+         * @param report The report of the run.
+         */
+        private void reply(byte type, Report report) {
+            int status;
+            switch (type) {
+                case GameProtocol.STATE:
+                    int boardSize = input.getInt();
+                    dot = input.getInt();
+                    steps = input.getInt();
+                    status = input.get();
+                    selected = new BitBoard(boardSize * boardSize);
+                    for (int w = 0; w < selected.wordCount(); w++) {
+                        selected.setWord(w, input.getLong());
+                    }
+                    break;
+                case GameProtocol.DIFF:
+                    dot = input.getInt();
+                    steps = input.getInt();
+                    status = input.get();
+                    for (int count = input.getShort(); count > 0; count--) {
+                        int index = input.getInt();
+                        if (input.get() == GameModel.SELECTED) {
+                            selected.set(index);
+                        } else {
+                            selected.clear(index);
+                        }
+                    }
+                    break;
+                default:
+                    // a request failed, e.g., a redo after the game ended
+                    report.errors++;
+                    undone = false;
+                    left--;
+                    if (left > 0) {
+                        GameProtocol.putNewGame(output, size, random.nextLong());
+                    }
+                    return;
+            }
+
+            if (undone) {
+                undone = false;
+                GameProtocol.putRequest(output, GameProtocol.REDO);
+            } else if (status != GameEngine.PLAYING) {
+                report.games++;
+                report.wins += status == GameEngine.WON ? 1 : 0;
+                if (--left > 0) {
+                    GameProtocol.putNewGame(output, size, random.nextLong());
+                }
+            } else if (steps > 0 && random.nextInt(UNDO_RATE) == 0) {
+                undone = true;
+                GameProtocol.putRequest(output, GameProtocol.UNDO);
+            } else {
+                GameProtocol.putSelect(output, chooseDot());
+            }
+        }
+
+        /**
+         * Helper method: chooses a random available neighbour of the blue
+         * dot, or any available dot if it has none.
+         *
+         * @return The index of the dot.
+         */
+        private int chooseDot() {
+            Topology topology = Topology.of(size);
+            int start = topology.start(dot);
+            int count = topology.end(dot) - start;
+            int first = random.nextInt(count);
+            for (int k = 0; k < count; k++) {
+                int n = topology.neighbour(start + (first + k) % count);
+                if (!selected.get(n)) {
+                    return n;
+                }
+            }
+            int cells = size * size;
+            int from = random.nextInt(cells);
+            for (int k = 0; k < cells; k++) {
+                int index = (from + k) % cells;
+                if (index != dot && !selected.get(index)) {
+                    return index;
+                }
+            }
+            return dot;
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>LoadClient</b>.
+     *
+     * @param address The address of the server.
+     * @param size The size of the boards.
+     * @param games The number of games played by each connection.
+     * @param seed The seed of the boards and of the moves.
+     */
+    public LoadClient(InetSocketAddress address, int size, int games, long seed) {
+        this.address = address;
+        this.size = size;
+        this.games = games;
+        this.generator = new Random(seed);
+    }
+
+    /**
+     * Opens connections to the server and plays their games.
+     *
+     * @param connections The number of connections.
+     * @return The report of the run.
+     * @throws IOException Thrown if the connections fail.
+     */
+    public Report run(int connections) throws IOException {
+        Report report = new Report();
+        report.connections = connections;
+        long start = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            for (int k = 0; k < connections; k++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT,
+                        new Client(channel, generator.nextLong()));
+            }
+            int open = connections;
+            while (open > 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!((Client) key.attachment()).ready(key, report)) {
+                        key.cancel();
+                        key.channel().close();
+                        open--;
+                    }
+                }
+            }
+        }
+        report.elapsed = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * The main method generates load on a running server.
+     *
+     * @param args Command line program arguments.
+     *             $ java LoadClient _HOST_ _PORT_ _CONNECTIONS_ _GAMES_ _SIZE_ _SEED_
+     * @throws IOException Thrown if the connections fail.
+     */
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int size = args.length > 4 ? Integer.parseInt(args[4]) : 9;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+
+        LoadClient client = new LoadClient(new InetSocketAddress(host, port), size, games, seed);
+        System.out.println(client.run(connections));
+    }
+
+}
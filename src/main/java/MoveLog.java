@@ -0,0 +1,156 @@
+import util.EmptyStackException;
+
+/**
+ * The class <b>MoveLog</b> holds the undo/redo history of a game as the list
+ * of its moves. Instead of a copy of the whole board, each move is recorded
+ * as a delta of four integers in a single growable array: the selected dot,
+ * the blue dot before and after the move, and the status of the game after
+ * the move. Undoing or redoing a move applies its delta to the model in
+ * constant time, and the history only takes 16 bytes per move.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class MoveLog {
+
+    /** The number of integers recorded per move. */
+    private static final int RECORD = 4;
+
+    /** The offset of the index of the selected dot in a record. */
+    private static final int SELECTED = 0;
+
+    /** The offset of the index of the blue dot before the move in a record. */
+    private static final int PREVIOUS_DOT = 1;
+
+    /** The offset of the index of the blue dot after the move in a record. */
+    private static final int NEXT_DOT = 2;
+
+    /** The offset of the status of the game after the move in a record. */
+    private static final int STATUS = 3;
+
+    /** The records of the moves, one after the other. */
+    private int[] moves;
+
+    /** The number of recorded moves, undone moves included. */
+    private int size;
+
+    /** The number of moves applied to the model, the others can be redone. */
+    private int cursor;
+
+    /**
+     * The constructor of the class <b>MoveLog</b>.
+     */
+    public MoveLog() {
+        moves = new int[RECORD * 16];
+    }
+
+    /**
+     * Records a new move after the moves applied to the model. The moves
+     * that could be redone are discarded.
+     *
+     * @param selected The index of the selected dot.
+     * @param previousDot The index of the blue dot before the move.
+     * @param nextDot The index of the blue dot after the move.
+     * @param status The status of the game after the move.
+     */
+    public void record(int selected, int previousDot, int nextDot, int status) {
+        if (RECORD * (cursor + 1) > moves.length) {
+            int[] grown = new int[moves.length * 2];
+            System.arraycopy(moves, 0, grown, 0, RECORD * cursor);
+            moves = grown;
+        }
+        int offset = RECORD * cursor;
+        moves[offset + SELECTED] = selected;
+        moves[offset + PREVIOUS_DOT] = previousDot;
+        moves[offset + NEXT_DOT] = nextDot;
+        moves[offset + STATUS] = status;
+        size = ++cursor;
+    }
+
+    /**
+     * Updates the blue dot and the status after the last applied move, e.g.,
+     * once the blue dot has moved. The moves that could be redone are
+     * discarded.
+     *
+     * @param nextDot The index of the blue dot after the move.
+     * @param status The status of the game after the move.
+     */
+    public void update(int nextDot, int status) {
+        if (cursor > 0) {
+            int offset = RECORD * (cursor - 1);
+            moves[offset + NEXT_DOT] = nextDot;
+            moves[offset + STATUS] = status;
+        }
+        size = cursor;
+    }
+
+    /**
+     * Reverts the last applied move on a model. The game was being played
+     * before any move.
+     *
+     * @param gameModel The model of the game.
+     * @throws EmptyStackException Thrown if there is no move to undo.
+     */
+    public void undo(GameModel gameModel) throws EmptyStackException {
+        if (isUndoEmpty()) {
+            throw new EmptyStackException("No move to undo");
+        }
+        int offset = RECORD * --cursor;
+        int selected = moves[offset + SELECTED];
+        gameModel.setCurrentIndex(moves[offset + PREVIOUS_DOT]);
+        gameModel.unselect(selected % gameModel.getSize(), selected / gameModel.getSize());
+    }
+
+    /**
+     * Applies again the last undone move on a model.
+     *
+     * @param gameModel The model of the game.
+     * @return the status of the game after the move.
+     * @throws EmptyStackException Thrown if there is no move to redo.
+     */
+    public int redo(GameModel gameModel) throws EmptyStackException {
+        if (isRedoEmpty()) {
+            throw new EmptyStackException("No move to redo");
+        }
+        int offset = RECORD * cursor++;
+        int selected = moves[offset + SELECTED];
+        gameModel.select(selected % gameModel.getSize(), selected / gameModel.getSize());
+        gameModel.setCurrentIndex(moves[offset + NEXT_DOT]);
+        return moves[offset + STATUS];
+    }
+
+    /**
+     * Checks if there is no move to undo.
+     *
+     * @return true if no move has been applied.
+     */
+    public boolean isUndoEmpty() {
+        return cursor == 0;
+    }
+
+    /**
+     * Checks if there is no move to redo.
+     *
+     * @return true if all the recorded moves are applied.
+     */
+    public boolean isRedoEmpty() {
+        return cursor == size;
+    }
+
+    /**
+     * Returns the number of moves applied to the model.
+     *
+     * @return the number of moves that can be undone.
+     */
+    public int size() {
+        return cursor;
+    }
+
+    /**
+     * Clears the history from all moves.
+     */
+    public void clear() {
+        size = cursor = 0;
+    }
+
+}
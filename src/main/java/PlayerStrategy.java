@@ -0,0 +1,20 @@
+import java.util.Random;
+
+/**
+ * The interface <b>PlayerStrategy</b> for defining how a simulated player
+ * chooses the dot to select on each move.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public interface PlayerStrategy {
+
+    /**
+     * Chooses the next dot to select. The chosen dot must be AVAILABLE.
+     * @param gameModel The model of the game being played.
+     * @param generator The random generator of the game being played.
+     * @return the index (j*size+i) of the dot to select.
+     */
+    int chooseDot(GameModel gameModel, Random generator);
+
+}
@@ -0,0 +1,204 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import util.BitBoard;
+
+/**
+ * The class <b>SaveFormat</b> reads and writes the compact binary save of a
+ * game. A save is made of a header followed by the board:
+ *
+ * - int    magic number "CTDS"
+ * - short  version of the format
+ * - int    size of the board
+ * - int    index (j*size+i) of the blue dot, or -1
+ * - int    number of steps
+ * - long   seed of the random generator of the next boards
+ * - long   seed of the current board (version 2 and later)
+ * - long[] the selected dots packed one bit per dot, (size*size+63)/64 words
+ *
+ * The blue dot is stored by its index, so one bit per dot is enough for the
+ * board. The files are read and written through a <b>FileChannel</b> with a
+ * single <b>ByteBuffer</b>.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class SaveFormat {
+
+    /** The magic number at the start of a save, "CTDS". */
+    private static final int MAGIC = 0x43544453;
+
+    /** The version of the format. */
+    private static final short VERSION = 2;
+
+    /** The length of the header of the first version, in bytes. */
+    private static final int HEADER = 4 + 2 + 4 + 4 + 4 + 8;
+
+    /** The smallest size of a board, as accepted by the game. */
+    private static final int MIN_SIZE = 4;
+
+    /** The largest size of a board whose number of dots fits an int. */
+    private static final int MAX_SIZE = 46340;
+
+    /**
+     * Encodes a game into a buffer. The model is left unchanged.
+     *
+     * @param gameModel The model of the game.
+     * @param seed The seed of the random generator of the next boards.
+     * @return The buffer holding the save, ready to be read.
+     */
+    public static ByteBuffer encode(GameModel gameModel, long seed) {
+        BitBoard selected = gameModel.getSelected();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 8 + 8 * selected.wordCount());
+
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(gameModel.getSize());
+        buffer.putInt(gameModel.getCurrentIndex());
+        buffer.putInt(gameModel.getNumberOfSteps());
+        buffer.putLong(seed);
+        buffer.putLong(gameModel.getSeed());
+        for (int w = 0; w < selected.wordCount(); w++) {
+            buffer.putLong(selected.word(w));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decodes a game from a buffer.
+     *
+     * @param buffer The buffer holding the save.
+     * @return The model of the game.
+     * @throws IOException Thrown if the buffer does not hold a valid save.
+     */
+    public static GameModel decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a save of the game");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        int size = buffer.getInt();
+        int currentDot = buffer.getInt();
+        int numberOfSteps = buffer.getInt();
+        long seed = buffer.getLong();
+        if (version >= 2 && buffer.remaining() < 8) {
+            throw new IOException("Truncated save");
+        }
+        long boardSeed = version >= 2 ? buffer.getLong() : 0L;
+        checkSize(size);
+        long cells = (long) size * size;
+        if (currentDot < -1 || currentDot >= cells) {
+            throw new IOException("Corrupted save");
+        }
+        if (buffer.remaining() < 8L * ((cells + 63) >>> 6)) {
+            throw new IOException("Truncated save");
+        }
+
+        BitBoard selected = new BitBoard((int) cells);
+        for (int w = 0; w < selected.wordCount(); w++) {
+            selected.setWord(w, buffer.getLong());
+        }
+        if (currentDot != -1 && selected.get(currentDot)) {
+            throw new IOException("Corrupted save");
+        }
+        return new GameModel(size, new Random(seed), boardSeed, selected, currentDot,
+                numberOfSteps);
+    }
+
+    /**
+     * Writes the save of a game into a file. The random generator of the
+     * model is reseeded so that the saved seed gives its next boards.
+     *
+     * @param gameModel The model of the game.
+     * @param file The file to write.
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    public static void write(GameModel gameModel, File file) throws IOException {
+        long seed = gameModel.getGenerator().nextLong();
+        gameModel.getGenerator().setSeed(seed);
+        ByteBuffer buffer = encode(gameModel, seed);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads the save of a game from a file.
+     *
+     * @param file The file to read.
+     * @return The model of the game.
+     * @throws IOException Thrown if the file cannot be read or does not hold
+     * a valid save.
+     */
+    public static GameModel read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a save of the game");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // reads the whole file
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+
+    /**
+     * Reads the size of the board of the save of a game from a file, e.g.,
+     * to build the view of the game while the save is decoded.
+     *
+     * @param file The file to read.
+     * @return The size of the board.
+     * @throws IOException Thrown if the file cannot be read or does not hold
+     * a valid save.
+     */
+    public static int readSize(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + 2 + 4);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // reads the start of the header
+            }
+            buffer.flip();
+            if (buffer.remaining() < 4 + 2 + 4 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a save of the game");
+            }
+            short version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported save version " + version);
+            }
+            int size = buffer.getInt();
+            checkSize(size);
+            return size;
+        }
+    }
+
+    /**
+     * Helper method: checks that the size of the board of a save is one
+     * the game can play, before anything of that size is allocated.
+     *
+     * @param size The size of the board.
+     * @throws IOException Thrown if the size is out of bounds.
+     */
+    private static void checkSize(int size) throws IOException {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IOException("Corrupted save");
+        }
+    }
+
+    /**
+     * The class <b>SaveFormat</b> cannot be instantiated.
+     */
+    private SaveFormat() {
+    }
+
+}
@@ -0,0 +1,375 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class <b>SessionStore</b> holds the games of many sessions, e.g., of
+ * the clients of a <b>GameServer</b>, under a budget of heap. The games kept
+ * in memory are weighed, and once their weight exceeds the budget, the games
+ * that have been used the least recently are spilled to a file and dropped
+ * from the heap. A spilled game is reloaded by the next <b>get</b> of its
+ * session, with its whole undo/redo history, so the callers never see the
+ * difference.
+ *
+ * A spilled game is a record of its line of play, as in <b>GameArchive</b>:
+ * the start of the game, as written by <b>LineOfPlay</b>, the number of
+ * moves of the line, undone moves included, the number of moves applied,
+ * the others can be redone, and the moves, as written by <b>LineOfPlay</b>.
+ *
+ * The records are appended to the spill file, and the file is compacted
+ * once most of it holds records of reloaded or removed games.
+ *
+ * The weight of a game is an estimate of its heap, from its board and the
+ * length of its history. The store is not thread-safe: it is used by a
+ * single thread, e.g., a selector loop of <b>GameServer</b>.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class SessionStore implements Closeable {
+
+    /** The estimated weight of a game, board and history excluded, in bytes. */
+    private static final long SESSION_BYTES = 1024;
+
+    /** The estimated weight of a move of the history, in bytes. */
+    private static final long MOVE_BYTES = 512;
+
+    /** The length of a record after the start of its game, moves excluded. */
+    private static final int TRAILER = 4 + 4;
+
+    /** The size of the spill file under which it is never compacted. */
+    private static final long MIN_COMPACT = 1 << 20;
+
+    /** The spill file. */
+    private final File file;
+
+    /** The budget of the games in memory, in bytes. */
+    private final long budget;
+
+    /** The strategy of the blue dots of the games. */
+    private final EscapeStrategy escapeStrategy;
+
+    /** The games in memory, the least recently used first. */
+    private final LinkedHashMap<Long, Session> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The location of the record of every spilled game, as offset and length. */
+    private final Map<Long, long[]> spilled = new HashMap<>();
+
+    /** The channel of the spill file, opened on the first spill. */
+    private FileChannel channel;
+
+    /** The length of the records of the spill file that are still spilled. */
+    private long live;
+
+    /** The ID of the next session. */
+    private long nextId;
+
+    /** The weight of the games in memory, in bytes. */
+    private long weight;
+
+    /** The number of games spilled so far. */
+    private long evictions;
+
+    /** The number of games reloaded so far. */
+    private long reloads;
+
+    /**
+     * The class <b>Session</b> holds a game in memory and its last weight.
+     */
+    private static class Session {
+
+        /** The engine of the game. */
+        private final GameEngine gameEngine;
+
+        /** The weight of the game when it was last weighed. */
+        private long weight;
+
+        /**
+         * The constructor of the class <b>Session</b>.
+         *
+         * @param gameEngine The engine of the game.
+         */
+        private Session(GameEngine gameEngine) {
+            this.gameEngine = gameEngine;
+            this.weight = weigh(gameEngine);
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>SessionStore</b>. The spill file is
+     * only created when a game is first spilled, and deleted on exit.
+     *
+     * @param file The spill file, overwritten if it exists.
+     * @param budget The budget of the games in memory, in bytes.
+     * @param escapeStrategy The strategy of the blue dots of the games.
+     */
+    public SessionStore(File file, long budget, EscapeStrategy escapeStrategy) {
+        this.file = file;
+        this.budget = budget;
+        this.escapeStrategy = escapeStrategy;
+    }
+
+    /**
+     * Starts the session of a new game, on the board of a seed.
+     *
+     * @param size The size of the board.
+     * @param seed The seed of the board.
+     * @return The ID of the session.
+     * @throws IOException Thrown if other games cannot be spilled.
+     */
+    public long create(int size, long seed) throws IOException {
+        long id = nextId++;
+        Session session = new Session(new GameEngine(new GameModel(size, seed), escapeStrategy));
+        resident.put(id, session);
+        weight += session.weight;
+        evict(id);
+        return id;
+    }
+
+    /**
+     * Returns the game of a session, reloading it if it has been spilled.
+     *
+     * @param id The ID of the session.
+     * @return The engine of the game, or null if there is no such session.
+     * @throws IOException Thrown if the game cannot be reloaded, or other
+     * games cannot be spilled.
+     */
+    public GameEngine get(long id) throws IOException {
+        Session session = resident.get(id);
+        if (session == null) {
+            long[] location = spilled.remove(id);
+            if (location == null) {
+                return null;
+            }
+            session = new Session(reload(location));
+            live -= location[1];
+            reloads++;
+            resident.put(id, session);
+            weight += session.weight;
+            evict(id);
+        }
+        return session.gameEngine;
+    }
+
+    /**
+     * Weighs again the game of a session once it has changed, e.g., after a
+     * move, and spills other games if the budget is exceeded.
+     *
+     * @param id The ID of the session.
+     * @throws IOException Thrown if other games cannot be spilled.
+     */
+    public void update(long id) throws IOException {
+        Session session = resident.get(id);
+        if (session != null) {
+            long previous = session.weight;
+            session.weight = weigh(session.gameEngine);
+            weight += session.weight - previous;
+            evict(id);
+        }
+    }
+
+    /**
+     * Ends a session, dropping its game from the memory or from the spill
+     * file.
+     *
+     * @param id The ID of the session.
+     */
+    public void remove(long id) {
+        Session session = resident.remove(id);
+        if (session != null) {
+            weight -= session.weight;
+        }
+        long[] location = spilled.remove(id);
+        if (location != null) {
+            live -= location[1];
+        }
+    }
+
+    /**
+     * An instance method for getting the number of games in memory.
+     *
+     * @return The number of games in memory.
+     */
+    public int getResident() {
+        return resident.size();
+    }
+
+    /**
+     * An instance method for getting the number of games spilled to the file.
+     *
+     * @return The number of games spilled.
+     */
+    public int getSpilled() {
+        return spilled.size();
+    }
+
+    /**
+     * An instance method for getting the weight of the games in memory.
+     *
+     * @return The estimated weight, in bytes.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * An instance method for getting the number of games spilled so far.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * An instance method for getting the number of games reloaded so far.
+     *
+     * @return The number of reloads.
+     */
+    public long getReloads() {
+        return reloads;
+    }
+
+    /**
+     * Closes and deletes the spill file. The spilled games are lost.
+     */
+    @Override
+    public void close() throws IOException {
+        spilled.clear();
+        live = 0;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Helper method: spills the least recently used games until the weight
+     * is within the budget. The game in use is never spilled.
+     *
+     * @param kept The ID of the session in use.
+     * @throws IOException Thrown if the spill file cannot be written.
+     */
+    private void evict(long kept) throws IOException {
+        Iterator<Map.Entry<Long, Session>> sessions = resident.entrySet().iterator();
+        while (weight > budget && sessions.hasNext()) {
+            Map.Entry<Long, Session> entry = sessions.next();
+            if (entry.getKey() == kept) {
+                continue;
+            }
+            spill(entry.getKey(), entry.getValue().gameEngine);
+            weight -= entry.getValue().weight;
+            sessions.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Helper method: appends the record of a game to the spill file.
+     *
+     * @param id The ID of the session.
+     * @param gameEngine The engine of the game.
+     * @throws IOException Thrown if the spill file cannot be written.
+     */
+    private void spill(long id, GameEngine gameEngine) throws IOException {
+        List<Snapshot> line = gameEngine.getHistory();
+        Snapshot first = line.get(0);
+        int moves = line.size() - 1;
+        int applied = gameEngine.getSnapshot().getNumberOfSteps() - first.getNumberOfSteps();
+
+        ByteBuffer record = ByteBuffer.allocate(LineOfPlay.length(first, moves) + TRAILER);
+        LineOfPlay.putStart(record, first);
+        record.putInt(moves);
+        record.putInt(applied);
+        LineOfPlay.putMoves(record, line);
+        record.flip();
+
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            file.deleteOnExit();
+        } else if (channel.size() > MIN_COMPACT && live < channel.size() / 2) {
+            compact();
+        }
+        long offset = channel.size();
+        LineOfPlay.writeFully(channel, record, offset);
+        spilled.put(id, new long[] {offset, record.capacity()});
+        live += record.capacity();
+    }
+
+    /**
+     * Helper method: rebuilds a game from its record in the spill file.
+     *
+     * @param location The offset and the length of the record.
+     * @return The engine of the game, on the same move and with the same
+     * undo/redo history as when it was spilled.
+     * @throws IOException Thrown if the spill file cannot be read.
+     */
+    private GameEngine reload(long[] location) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate((int) location[1]);
+        LineOfPlay.readFully(channel, record, location[0]);
+        record.flip();
+
+        GameEngine gameEngine = new GameEngine(LineOfPlay.getStart(record), escapeStrategy);
+        int moves = record.getInt();
+        int applied = record.getInt();
+        gameEngine.jumpTo(LineOfPlay.getMoves(record, gameEngine.getSnapshot(), moves));
+        for (int k = applied; k < moves; k++) {
+            gameEngine.undo();
+        }
+        return gameEngine;
+    }
+
+    /**
+     * Helper method: copies the records still spilled to a new spill file,
+     * dropping the records of the games reloaded or removed.
+     *
+     * @throws IOException Thrown if the spill files cannot be written.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+        try (FileChannel target = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (long[] location : spilled.values()) {
+                ByteBuffer record = ByteBuffer.allocate((int) location[1]);
+                LineOfPlay.readFully(channel, record, location[0]);
+                record.flip();
+                LineOfPlay.writeFully(target, record, offset);
+                location[0] = offset;
+                offset += location[1];
+            }
+        }
+        channel.close();
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Helper method: estimates the heap taken by a game: its model and the
+     * start of its history hold two copies of the board, and each move of
+     * its history holds a snapshot and a record of its undo/redo log.
+     *
+     * @param gameEngine The engine of the game.
+     * @return The estimated weight, in bytes.
+     */
+    private static long weigh(GameEngine gameEngine) {
+        int size = gameEngine.getGameModel().getSize();
+        long board = 16 + 8 * ((size * size + 63) >>> 6);
+        return SESSION_BYTES + 2 * board + MOVE_BYTES * (gameEngine.getHistory().size() - 1);
+    }
+
+}
@@ -0,0 +1,216 @@
+import util.PersistentBitSet;
+import util.Zobrist;
+
+/**
+ * The class <b>Snapshot</b> holds an immutable version of a game: the
+ * selected dots, the blue dot, the number of steps and the status of the
+ * game after a move. The selected dots are held in a persistent bit set, so
+ * the snapshot of a move shares all the unchanged chunks of the board with
+ * the snapshot of the previous move and only costs O(log n) to create. Each
+ * snapshot points to the snapshot it was played from, so holding snapshots
+ * holds the tree of the game with memory proportional to the number of
+ * moves.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class Snapshot {
+
+    /** The size of the board. */
+    private final int size;
+
+    /** The selected dots, the dot (i,j) is stored at the index j*size+i. */
+    private final PersistentBitSet selected;
+
+    /** The index of the blue dot, or -1 once it has exited the board. */
+    private final int currentDot;
+
+    /** The number of steps played since the start of the game. */
+    private final int numberOfSteps;
+
+    /** The status of the game, as defined by <b>GameEngine</b>. */
+    private final int status;
+
+    /** The seed the board of the game was generated from. */
+    private final long seed;
+
+    /** True if the position is the board generated from the seed. */
+    private final boolean seeded;
+
+    /** The Zobrist hash of the selected dots and of the blue dot. */
+    private final long zobristKey;
+
+    /** The index of the dot selected by the move, or -1 at the start. */
+    private final int move;
+
+    /** The snapshot the move was played from, or null at the start. */
+    private final Snapshot parent;
+
+    /**
+     * The constructor of the class <b>Snapshot</b>.
+     */
+    private Snapshot(int size, PersistentBitSet selected, int currentDot,
+            int numberOfSteps, int status, long seed, boolean seeded, long zobristKey,
+            int move, Snapshot parent) {
+        this.size = size;
+        this.selected = selected;
+        this.currentDot = currentDot;
+        this.numberOfSteps = numberOfSteps;
+        this.status = status;
+        this.seed = seed;
+        this.seeded = seeded;
+        this.zobristKey = zobristKey;
+        this.move = move;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates the snapshot of the start of a game, copying the whole board.
+     *
+     * @param gameModel The model of the game.
+     * @param status The status of the game.
+     * @return The snapshot.
+     */
+    public static Snapshot of(GameModel gameModel, int status) {
+        return new Snapshot(gameModel.getSize(), PersistentBitSet.of(gameModel.getSelected()),
+                gameModel.getCurrentIndex(), gameModel.getNumberOfSteps(), status, gameModel.getSeed(),
+                gameModel.isSeeded(), gameModel.getZobristKey(), -1, null);
+    }
+
+    /**
+     * Creates the snapshot of a move played from this snapshot.
+     *
+     * @param move The index of the selected dot.
+     * @param currentDot The index of the blue dot after the move.
+     * @param status The status of the game after the move.
+     * @return The snapshot of the move.
+     */
+    public Snapshot next(int move, int currentDot, int status) {
+        Zobrist zobrist = Zobrist.of(size);
+        long key = zobristKey ^ zobrist.selected(move)
+                ^ zobrist.dot(this.currentDot) ^ zobrist.dot(currentDot);
+        return new Snapshot(size, selected.with(move), currentDot, numberOfSteps + 1,
+                status, seed, false, key, move, this);
+    }
+
+    /**
+     * Creates a copy of this snapshot where the blue dot has moved.
+     *
+     * @param currentDot The index of the blue dot.
+     * @param status The status of the game.
+     * @return The updated snapshot.
+     */
+    public Snapshot withCurrentDot(int currentDot, int status) {
+        Zobrist zobrist = Zobrist.of(size);
+        long key = zobristKey ^ zobrist.dot(this.currentDot) ^ zobrist.dot(currentDot);
+        return new Snapshot(size, selected, currentDot, numberOfSteps, status, seed,
+                seeded && currentDot == this.currentDot, key, move, parent);
+    }
+
+    /**
+     * returns the status (AVAILABLE, SELECTED or BLUE_DOT) of a given dot
+     *
+     * @param i the x coordinate of the dot
+     * @param j the y coordinate of the dot
+     * @return the status of the dot at location (i,j)
+     */
+    public int getCurrentStatus(int i, int j) {
+        int index = j * size + i;
+        if (index == currentDot) {
+            return GameModel.BLUE_DOT;
+        }
+        return selected.get(index) ? GameModel.SELECTED : GameModel.AVAILABLE;
+    }
+
+    /**
+     * Getter method for the size of the board
+     *
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Getter method for the selected dots
+     *
+     * @return the selected dots, the dot (i,j) is stored at the index j*size+i
+     */
+    public PersistentBitSet getSelected() {
+        return selected;
+    }
+
+    /**
+     * Getter method for the index (j*size+i) of the blue dot
+     *
+     * @return the index of the blue dot, or -1 if it has exited the board
+     */
+    public int getCurrentIndex() {
+        return currentDot;
+    }
+
+    /**
+     * Getter method for the number of steps
+     *
+     * @return the number of steps played since the start of the game
+     */
+    public int getNumberOfSteps() {
+        return numberOfSteps;
+    }
+
+    /**
+     * Getter method for the status of the game
+     *
+     * @return PLAYING, WON or LOST, as defined by <b>GameEngine</b>
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter method for the seed the board of the game was generated from
+     *
+     * @return the seed of the board
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Checks if the position is the board generated from the seed
+     *
+     * @return true at the start of a game dealt from its seed
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Getter method for the Zobrist hash of the position, equal to the hash
+     * of a model holding the same position
+     *
+     * @return the 64-bit hash of the position
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Getter method for the dot selected by the move of this snapshot
+     *
+     * @return the index of the selected dot, or -1 at the start of the game
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Getter method for the snapshot this move was played from
+     *
+     * @return the previous snapshot, or null at the start of the game
+     */
+    public Snapshot getParent() {
+        return parent;
+    }
+
+}
@@ -0,0 +1,1021 @@
+import java.util.Arrays;
+import util.BitBoard;
+import util.Cells;
+import util.Topology;
+
+/**
+ * The class <b>TrapSolver</b> searches the selections that trap the blue dot
+ * in the fewest moves. The blue dot answers each selection as it does in the
+ * game, with the step of its <b>EscapeStrategy</b>: the strategies break
+ * their ties with the turn seed of the model, so the step is a function of
+ * the position and of the number of steps, and the search only branches on
+ * the selections of the player.
+ *
+ * The search is an iterative deepening search: a win within 1, 2, 3...
+ * moves is searched until one is found or the time budget is spent, so the
+ * first win found is the fastest. The positions are keyed by their Zobrist
+ * hash, as maintained by <b>GameModel</b>, mixed with their turn seed, into
+ * a transposition table, which records the wins and the depths without win
+ * of the positions reached by different move orders.
+ *
+ * The positions are pruned with a lower bound: to win within n moves, the
+ * n selections must cut from the border one of the dots the blue dot can
+ * reach in n - 1 steps, so one of these dots must have a minimum cut (the
+ * number of dots to select to separate it from the border, computed as a
+ * maximum flow of vertex-disjoint paths) of at most n. A selection lowers
+ * the cut of a dot by one at most, and not at all if it is on none of the
+ * paths of its flow, so the flows of a position are kept for the positions
+ * after it, and only computed again for the dots whose cut was small enough
+ * and whose paths the selection crossed.
+ *
+ * The moves are pruned as follows:
+ * - a blue dot with two available neighbours on the border cannot be
+ *   trapped, and one with a single such neighbour forces to select it;
+ * - the last move must cut every path of the blue dot, so only the dots of
+ *   one shortest path are tried;
+ * - when no dot has a cut below n, a move must lower one of the cuts of n,
+ *   so only the dots of their flows are tried;
+ * - the other moves are the dots the blue dot can reach, the dots two steps
+ *   away first, where a selection leaves time to close around the blue dot
+ *   without letting it pass, and a single dot it cannot reach, as all of
+ *   them only pass the turn.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class TrapSolver {
+
+    /** The number of steps of a solution that was not found. */
+    public static final int UNKNOWN = -1;
+
+    /** The distance of a dot that cannot reach the border. */
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /** The number of bits of the index of the transposition table. */
+    private static final int TABLE_BITS = 20;
+
+    /** The number of positions searched between two checks of the time. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * The next direction clockwise of every direction of <b>Cells</b>: up
+     * right, right, down right, down left, left, up left.
+     */
+    private static final int[] CLOCKWISE = {1, 3, 0, 5, 2, 4};
+
+    /** The successor of a dot on a path of the flow that ends on the border. */
+    private static final int SINK = -2;
+
+    /** The time budget of a search, in nanoseconds. */
+    private final long budget;
+
+    /** The strategy of the blue dot, breaking its ties with the turn seed. */
+    private final EscapeStrategy escapeStrategy;
+
+    /** The working copy of the searched position. */
+    private GameModel working;
+
+    /** The size of the board the buffers are currently allocated for. */
+    private int size;
+
+    /** The neighbours and the border of the dots. */
+    private Topology topology;
+
+    /** The selected dots of the working copy. */
+    private BitBoard selected;
+
+    /** The index of the blue dot of the working copy. */
+    private int dot;
+
+    /** The distance to the border of every dot, the blue dot not blocking. */
+    private int[] distance;
+
+    /** The distance from the blue dot of every dot it can reach. */
+    private int[] reach;
+
+    /** The queue of the searches. */
+    private int[] queue;
+
+    /** The successor of every dot on the paths of the flow, or -1. */
+    private int[] successor;
+
+    /** The predecessor of every dot on the paths of the flow, or -1. */
+    private int[] predecessor;
+
+    /** True for the dots a path of the flow goes through. */
+    private boolean[] through;
+
+    /**
+     * The states of the search for paths of the flow, 2*dot entering the dot
+     * and 2*dot+1 leaving it.
+     */
+    private int[] states;
+
+    /** The state each state of the search for paths was reached from. */
+    private int[] parent;
+
+    /** The generation in which each state was last reached. */
+    private int[] seen;
+
+    /** The generation of the current search for paths. */
+    private int generation;
+
+    /** The moves to try at every level of the search. */
+    private int[][] moves = new int[0][];
+
+    /**
+     * The cuts of the dots at every level of the search, or depth + 1 for
+     * the dots that cannot be cut in depth moves, set for the dots the blue
+     * dot can reach when the level is exact.
+     */
+    private int[][] cuts = new int[0][];
+
+    /** True for the levels whose cuts were computed for all their dots. */
+    private boolean[] exact = new boolean[0];
+
+    /**
+     * The dots on the paths of the flow of every dot at every level of the
+     * search, as words of bits, words dots after words dots.
+     */
+    private long[][] flows = new long[0][];
+
+    /** True for the dots whose flow is kept at every level of the search. */
+    private boolean[][] flowed = new boolean[0][];
+
+    /** The move played at every level of the search. */
+    private int[] played = new int[0];
+
+    /** The number of words of bits of a flow. */
+    private int words;
+
+    /** True if no cut of the searched position is below the depth. */
+    private boolean tight;
+
+    /** The dots on the flows of the cuts equal to the depth, as words of bits. */
+    private long[] onPaths;
+
+    /** The neighbour of every dot in every direction, or -1. */
+    private int[] steps;
+
+    /** The stack of the searches of the sectors. */
+    private int[] stack;
+
+    /** The dot each dot was reached from in the search of a sector. */
+    private int[] trail;
+
+    /** The stamp with which each dot was last reached in a sector. */
+    private int[] marks;
+
+    /** The stamp of the current search of a sector. */
+    private int stamp;
+
+    /** The scratch array used to sort the moves. */
+    private long[] order;
+
+    /** The keys of the positions of the transposition table. */
+    private final long[] tableKeys = new long[1 << TABLE_BITS];
+
+    /** The fewest moves known to win from each position. */
+    private final int[] tableWin = new int[1 << TABLE_BITS];
+
+    /** The most moves known not to win from each position. */
+    private final int[] tableNoWin = new int[1 << TABLE_BITS];
+
+    /** The move winning in tableWin moves from each position, or -1. */
+    private final int[] tableBest = new int[1 << TABLE_BITS];
+
+    /** The time at which the search stops, in nanoseconds. */
+    private long deadline;
+
+    /** The number of positions searched. */
+    private long nodes;
+
+    /** True once the time budget is spent. */
+    private boolean stopped;
+
+    /**
+     * The class <b>Solution</b> that holds the result of a search.
+     */
+    public static class Solution {
+
+        /** The fewest moves to trap the blue dot, or UNKNOWN. */
+        private final int steps;
+
+        /** The selections of a fastest win, as dot indices. */
+        private final int[] moves;
+
+        /** The fewest moves a win can take. */
+        private final int bound;
+
+        /** The number of positions searched. */
+        private final long nodes;
+
+        /**
+         * The constructor of the class <b>Solution</b>.
+         */
+        private Solution(int steps, int[] moves, int bound, long nodes) {
+            this.steps = steps;
+            this.moves = moves;
+            this.bound = bound;
+            this.nodes = nodes;
+        }
+
+        /**
+         * An instance method for getting the fewest moves to trap the blue
+         * dot.
+         *
+         * @return The number of moves, or UNKNOWN if no win was found.
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * An instance method for getting the selections of a fastest win,
+         * the blue dot answering them with the steps of the strategy of the
+         * solver.
+         *
+         * @return The indices (j*size+i) of the dots to select.
+         */
+        public int[] getMoves() {
+            return moves.clone();
+        }
+
+        /**
+         * An instance method for getting the fewest moves a win can take.
+         * It is the number of steps if a win was found, and Integer.MAX_VALUE
+         * if the blue dot is proven to escape.
+         *
+         * @return The lower bound of the number of moves.
+         */
+        public int getBound() {
+            return bound;
+        }
+
+        /**
+         * An instance method for getting the number of positions searched.
+         *
+         * @return The number of positions.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            if (steps != UNKNOWN) {
+                return "win in " + steps + " moves " + Arrays.toString(moves)
+                        + ", " + nodes + " positions";
+            } else if (bound == Integer.MAX_VALUE) {
+                return "the blue dot escapes, " + nodes + " positions";
+            }
+            return "no win in fewer than " + bound + " moves, " + nodes + " positions";
+        }
+
+    }
+
+    /**
+     * The constructor of the class <b>TrapSolver</b>, against the blue dot
+     * of the game.
+     *
+     * @param budget The time budget of a search, in milliseconds.
+     */
+    public TrapSolver(long budget) {
+        this(budget, new EscapeSearch());
+    }
+
+    /**
+     * The constructor of the class <b>TrapSolver</b>.
+     *
+     * @param budget The time budget of a search, in milliseconds.
+     * @param escapeStrategy The strategy of the blue dot. It must break its
+     *                       ties with the turn seed of the model, not with a
+     *                       random generator.
+     */
+    public TrapSolver(long budget, EscapeStrategy escapeStrategy) {
+        this.budget = budget * 1000000L;
+        this.escapeStrategy = escapeStrategy;
+    }
+
+    /**
+     * Searches the fewest moves to trap the blue dot from a given position,
+     * within the time budget. The model is not changed.
+     *
+     * @param gameModel The model of the game, the player to move.
+     * @return The solution.
+     */
+    public Solution solve(GameModel gameModel) {
+        ensureCapacity(gameModel.getSize());
+        working = gameModel.clone();
+        selected = working.getSelected();
+        dot = working.getCurrentIndex();
+        nodes = 0;
+        stopped = false;
+        deadline = System.nanoTime() + budget;
+
+        if (dot == -1 || topology.isOnBorder(dot)) {
+            return new Solution(UNKNOWN, new int[0], Integer.MAX_VALUE, nodes);
+        }
+        if (escapeStrategy.findDirection(working) == EscapeStrategy.NONE) {
+            return new Solution(0, new int[0], 0, nodes);
+        }
+
+        // a win takes at most one move per dot the blue dot can reach
+        int maxDepth = reachable();
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (wins(depth, 0)) {
+                return new Solution(depth, principalLine(depth), depth, nodes);
+            }
+            if (stopped) {
+                return new Solution(UNKNOWN, new int[0], depth, nodes);
+            }
+        }
+        return new Solution(UNKNOWN, new int[0], Integer.MAX_VALUE, nodes);
+    }
+
+    /**
+     * Helper method: checks if the player can trap the blue dot within a
+     * given number of moves from the searched position.
+     *
+     * @param depth The number of moves.
+     * @param level The level of the search.
+     * @return true if there is a win; false if there is none, or if the time
+     * budget is spent.
+     */
+    private boolean wins(int depth, int level) {
+        if (++nodes % CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (stopped || topology.isOnBorder(dot)) {
+            return false;
+        }
+        int slot = slot(key());
+        if (tableWin[slot] <= depth) {
+            return true;
+        }
+        if (tableNoWin[slot] >= depth) {
+            return false;
+        }
+        int[] tried = ensureLevel(level);
+        if (!canTrap(depth, level)) {
+            tableNoWin[slot] = depth;
+            return false;
+        }
+
+        int count = candidates(depth, tried);
+        if (count < 0) {
+            tableNoWin[slot] = Integer.MAX_VALUE;
+            return false;
+        }
+        for (int c = 0; c < count; c++) {
+            int move = tried[c];
+            played[level] = move;
+            int win = play(move, depth, level);
+            if (win > 0) {
+                // the slot may have been taken by a deeper position
+                slot = slot(key());
+                tableWin[slot] = Math.min(tableWin[slot], win);
+                tableBest[slot] = move;
+                return true;
+            }
+            if (stopped) {
+                return false;
+            }
+        }
+        slot = slot(key());
+        tableNoWin[slot] = Math.max(tableNoWin[slot], depth);
+        return false;
+    }
+
+    /**
+     * Helper method: plays a move and the step of the blue dot, searches the
+     * position reached, and takes both back.
+     *
+     * @param move The index of the selected dot.
+     * @param depth The number of moves left, the move included.
+     * @param level The level of the search.
+     * @return The number of moves of the win found, 1 if the move traps the
+     * blue dot, or 0 if there is no win within depth moves.
+     */
+    private int play(int move, int depth, int level) {
+        working.select(Cells.column(move, size), Cells.row(move, size));
+        int step = escapeStrategy.findDirection(working);
+        int win = step == EscapeStrategy.NONE ? 1 : 0;
+        if (win == 0 && depth > 1) {
+            int from = dot;
+            dot = step;
+            working.setCurrentIndex(step);
+            win = wins(depth - 1, level + 1) ? depth : 0;
+            dot = from;
+            working.setCurrentIndex(from);
+        }
+        working.unselect(Cells.column(move, size), Cells.row(move, size));
+        return win;
+    }
+
+    /**
+     * Helper method: follows the winning moves of the transposition table
+     * from the searched position, the blue dot answering with its steps.
+     *
+     * @param depth The number of moves of the win.
+     * @return The winning moves.
+     */
+    private int[] principalLine(int depth) {
+        deadline = Long.MAX_VALUE;
+        stopped = false;
+        int[] line = new int[depth];
+        int length = 0;
+        while (length < depth) {
+            int slot = slot(key());
+            if (tableBest[slot] == -1 || tableWin[slot] > depth - length) {
+                // the position was replaced in the table, search it again
+                wins(depth - length, 0);
+                slot = slot(key());
+            }
+            int move = tableBest[slot];
+            line[length++] = move;
+            working.select(Cells.column(move, size), Cells.row(move, size));
+            int step = escapeStrategy.findDirection(working);
+            if (step == EscapeStrategy.NONE) {
+                break;
+            }
+            dot = step;
+            working.setCurrentIndex(step);
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Helper method: returns the key of the searched position in the
+     * transposition table. The turn seed tells apart the same position
+     * reached in a different number of steps, where the blue dot may break
+     * its ties otherwise.
+     *
+     * @return The key of the position.
+     */
+    private long key() {
+        return working.getZobristKey() ^ working.getTurnSeed();
+    }
+
+    /**
+     * Helper method: lists the moves worth trying from the searched
+     * position.
+     *
+     * @param depth The number of moves left.
+     * @param out The array receiving the moves.
+     * @return The number of moves, or -1 if the blue dot cannot be trapped.
+     */
+    private int candidates(int depth, int[] out) {
+        int exits = 0;
+        for (int slot = topology.start(dot); slot < topology.end(dot); slot++) {
+            int n = topology.neighbour(slot);
+            if (topology.isOnBorder(n) && !selected.get(n)) {
+                out[exits++] = n;
+            }
+        }
+        if (exits >= 2) {
+            return -1;
+        }
+        if (exits == 1) {
+            return 1;
+        }
+
+        if (depth == 1) {
+            // the last move must be on every path, so on this one
+            computeDistances();
+            int count = 0;
+            int cell = dot;
+            while (distance[cell] > 0) {
+                for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                    int n = topology.neighbour(slot);
+                    if (n != dot && distance[n] == distance[cell] - 1) {
+                        cell = n;
+                        break;
+                    }
+                }
+                out[count++] = cell;
+            }
+            return count;
+        }
+
+        int count = 0;
+        int head = 0;
+        int tail = 0;
+        Arrays.fill(reach, -1);
+        reach[dot] = 0;
+        queue[tail++] = dot;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                int n = topology.neighbour(slot);
+                if (reach[n] == -1 && !selected.get(n)) {
+                    reach[n] = reach[cell] + 1;
+                    queue[tail++] = n;
+                    if (tight && (onPaths[n >>> 6] & 1L << n) == 0) {
+                        continue;
+                    }
+                    // the dots two steps ahead first, then one and three...
+                    order[count++] = (long) Math.abs(reach[n] - 2) << 31 | n;
+                }
+            }
+        }
+        Arrays.sort(order, 0, count);
+        for (int c = 0; c < count; c++) {
+            out[c] = (int) (order[c] & Integer.MAX_VALUE);
+        }
+        for (int cell = 0; cell < size * size && !tight; cell++) {
+            if (reach[cell] == -1 && !selected.get(cell)) {
+                out[count++] = cell;
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Helper method: checks the lower bound of the searched position, i.e.,
+     * if one of the dots the blue dot can reach in depth - 1 steps can be
+     * cut from the border by depth selections. Unless the position is a
+     * leaf, the cuts of all these dots are recorded for the positions after
+     * it, which skip the dots whose cut exceeded depth, and when none is
+     * below depth, the dots of their flows are marked: a move must lower
+     * one of these cuts, so it must be on one of the paths of its flow.
+     *
+     * @param depth The number of moves left.
+     * @param level The level of the search.
+     * @return false if the blue dot cannot be trapped within depth moves.
+     */
+    private boolean canTrap(int depth, int level) {
+        int head = 0;
+        int tail = 0;
+        Arrays.fill(reach, -1);
+        reach[dot] = 0;
+        queue[tail++] = dot;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (reach[cell] < depth - 1) {
+                for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                    int n = topology.neighbour(slot);
+                    if (reach[n] == -1 && !topology.isOnBorder(n) && !selected.get(n)) {
+                        reach[n] = reach[cell] + 1;
+                        queue[tail++] = n;
+                    }
+                }
+            }
+        }
+
+        int[] bounds = cuts[level];
+        int[] previous = null;
+        long[] previousFlows = null;
+        boolean[] previousFlowed = null;
+        int move = -1;
+        if (level > 0 && exact[level - 1]) {
+            previous = cuts[level - 1];
+            previousFlows = flows[level - 1];
+            previousFlowed = flowed[level - 1];
+            move = played[level - 1];
+        }
+        exact[level] = depth > 1;
+        tight = exact[level];
+        Arrays.fill(onPaths, 0L);
+        boolean trapped = false;
+        // the farthest dots, closer to the border, are usually the easiest
+        // to cut, so they are tried first
+        for (int c = tail - 1; c >= 0; c--) {
+            int cell = queue[c];
+            flowed[level][cell] = false;
+            int bound;
+            if (previous != null && previous[cell] > depth + 1) {
+                // one selection ago, the dot could not be cut in depth + 1
+                bound = depth + 1;
+            } else if (previous != null && previousFlowed[cell]
+                    && !onFlow(previousFlows, cell, move)) {
+                // the selection is on none of the paths, the cut is the same
+                bound = previous[cell];
+                System.arraycopy(previousFlows, cell * words, flows[level], cell * words, words);
+                flowed[level][cell] = true;
+            } else {
+                // the available neighbours of a dot cut it, and its sectors
+                // hold disjoint paths to the border, so the flow is only
+                // computed when neither settles the cut
+                bound = openNeighbours(cell);
+                if (bound > depth || bound == depth && tight) {
+                    int paths = sectors(cell);
+                    bound = paths > depth ? depth + 1 : flow(cell, paths, depth, level);
+                }
+            }
+            bounds[cell] = bound;
+            if (bound <= depth) {
+                trapped = true;
+                if (!exact[level]) {
+                    break;
+                }
+            }
+            if (bound < depth) {
+                tight = false;
+            } else if (bound == depth && tight) {
+                for (int w = 0; w < words; w++) {
+                    onPaths[w] |= flows[level][cell * words + w];
+                }
+            }
+        }
+        return trapped;
+    }
+
+    /**
+     * Helper method: computes the cut of a dot from the paths of its
+     * sectors, and keeps its flow at a level of the search.
+     *
+     * @param cell The index of the dot.
+     * @param paths The number of paths of its sectors.
+     * @param depth The number of moves left.
+     * @param level The level of the search.
+     * @return The size of the minimum cut, or depth + 1 if it is larger.
+     */
+    private int flow(int cell, int paths, int depth, int level) {
+        int bound = cut(cell, paths, depth);
+        long[] kept = flows[level];
+        Arrays.fill(kept, cell * words, (cell + 1) * words, 0L);
+        for (int n = 0; n < size * size; n++) {
+            if (through[n]) {
+                kept[cell * words + (n >>> 6)] |= 1L << n;
+            }
+        }
+        flowed[level][cell] = true;
+        return bound;
+    }
+
+    /**
+     * Helper method: checks if a dot is on the paths of the flow of a dot.
+     *
+     * @param paths The flows of a level of the search.
+     * @param cell The index of the dot of the flow.
+     * @param n The index of the dot to check.
+     * @return true if n is on one of the paths.
+     */
+    private boolean onFlow(long[] paths, int cell, int n) {
+        return (paths[cell * words + (n >>> 6)] & 1L << n) != 0;
+    }
+
+    /**
+     * Helper method: counts the available neighbours of a dot.
+     *
+     * @param cell The index of the dot.
+     * @return The number of neighbours.
+     */
+    private int openNeighbours(int cell) {
+        int count = 0;
+        for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+            if (!selected.get(topology.neighbour(slot))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Helper method: counts the sectors of a dot with a path to the border, a
+     * lower bound of its cut. The sector of a direction holds the dots
+     * reached from the neighbour of the dot in this direction by steps in
+     * this direction or in the next one clockwise; the six sectors of a dot
+     * are disjoint, so are their paths, which start the flow of the dot.
+     *
+     * @param cell The index of the dot.
+     * @return The number of sectors.
+     */
+    private int sectors(int cell) {
+        Arrays.fill(successor, -1);
+        Arrays.fill(predecessor, -1);
+        Arrays.fill(through, false);
+        int count = 0;
+        for (int k = 0; k < Cells.NEIGHBOURS; k++) {
+            int first = steps[cell * Cells.NEIGHBOURS + k];
+            if (first != -1 && !selected.get(first) && sectorPath(cell, first, k)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Helper method: searches a path of available dots to the border by
+     * steps in a direction or in the next one clockwise, and adds it to the
+     * flow of a dot.
+     *
+     * @param source The dot of the flow.
+     * @param first The first dot of the path, available.
+     * @param k The direction.
+     * @return true if there is a path.
+     */
+    private boolean sectorPath(int source, int first, int k) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 1;
+        }
+        int next = CLOCKWISE[k];
+        int tail = 0;
+        marks[first] = stamp;
+        stack[tail++] = first;
+        while (tail > 0) {
+            int cell = stack[--tail];
+            if (topology.isOnBorder(cell)) {
+                successor[cell] = SINK;
+                through[cell] = true;
+                for (; cell != first; cell = trail[cell]) {
+                    successor[trail[cell]] = cell;
+                    predecessor[cell] = trail[cell];
+                    through[trail[cell]] = true;
+                }
+                predecessor[first] = source;
+                return true;
+            }
+            tail = pushSector(steps[cell * Cells.NEIGHBOURS + next], cell, tail);
+            tail = pushSector(steps[cell * Cells.NEIGHBOURS + k], cell, tail);
+        }
+        return false;
+    }
+
+    /**
+     * Helper method: adds a dot to the search of a sector, unless it is off
+     * the board, selected or already reached.
+     *
+     * @param cell The index of the dot, or -1.
+     * @param from The dot it is reached from.
+     * @param tail The end of the stack.
+     * @return The new end of the stack.
+     */
+    private int pushSector(int cell, int from, int tail) {
+        if (cell != -1 && marks[cell] != stamp && !selected.get(cell)) {
+            marks[cell] = stamp;
+            trail[cell] = from;
+            stack[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * Helper method: computes the minimum number of dots to select to cut a
+     * dot from the border, as the number of vertex-disjoint paths from the
+     * dot to the border. The paths are added one at a time to the flow by a
+     * depth-first search in the residual graph where each dot is split into
+     * its entry and its exit.
+     *
+     * @param source The dot to cut, not on the border.
+     * @param flow The number of paths of the flow so far.
+     * @param limit The number of paths after which the count stops.
+     * @return The size of the minimum cut, or limit + 1 if it is larger.
+     */
+    private int cut(int source, int flow, int limit) {
+        while (flow <= limit) {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                generation = 1;
+            }
+            int tail = 0;
+            int start = 2 * source + 1;
+            seen[start] = generation;
+            states[tail++] = start;
+            int end = -1;
+            while (tail > 0 && end == -1) {
+                int state = states[--tail];
+                int cell = state >> 1;
+                if ((state & 1) == 1) {
+                    if (cell != source && topology.isOnBorder(cell) && successor[cell] != SINK) {
+                        end = state;
+                        break;
+                    }
+                    for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                        int n = topology.neighbour(slot);
+                        if (n == source || selected.get(n)
+                                || (cell == source ? predecessor[n] == source : successor[cell] == n)) {
+                            continue;
+                        }
+                        tail = push(2 * n, state, tail);
+                    }
+                    if (through[cell]) {
+                        tail = push(2 * cell, state, tail);
+                    }
+                } else {
+                    if (!through[cell]) {
+                        tail = push(2 * cell + 1, state, tail);
+                    }
+                    if (predecessor[cell] != -1) {
+                        tail = push(2 * predecessor[cell] + 1, state, tail);
+                    }
+                }
+            }
+            if (end == -1) {
+                break;
+            }
+
+            // augments along the path, from the source to the border
+            int length = 0;
+            for (int state = end; state != start; state = parent[state]) {
+                states[length++] = state;
+            }
+            int from = start;
+            for (int p = length - 1; p >= 0; p--) {
+                int to = states[p];
+                int a = from >> 1;
+                int b = to >> 1;
+                if (a == b) {
+                    // enters (forward) or leaves back (reverse) the dot
+                    through[a] = (from & 1) == 0;
+                } else if ((from & 1) == 1) {
+                    if (a != source) {
+                        successor[a] = b;
+                    }
+                    predecessor[b] = a;
+                } else {
+                    // cancels the flow from b to a
+                    if (b != source) {
+                        successor[b] = -1;
+                    }
+                    if (predecessor[a] == b) {
+                        predecessor[a] = -1;
+                    }
+                }
+                from = to;
+            }
+            successor[end >> 1] = SINK;
+            flow++;
+        }
+        return flow;
+    }
+
+    /**
+     * Helper method: adds a state to the search for paths, unless it was
+     * already reached.
+     *
+     * @param state The state to add.
+     * @param from The state it is reached from.
+     * @param tail The end of the queue of states.
+     * @return The new end of the queue.
+     */
+    private int push(int state, int from, int tail) {
+        if (seen[state] != generation) {
+            seen[state] = generation;
+            parent[state] = from;
+            states[tail++] = state;
+        }
+        return tail;
+    }
+
+    /**
+     * Helper method: computes the distance to the border of every dot of the
+     * searched position by a ``breadth-first'' search from the border.
+     */
+    private void computeDistances() {
+        Arrays.fill(distance, INFINITY);
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (topology.isOnBorder(cell) && !selected.get(cell)) {
+                distance[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                int n = topology.neighbour(slot);
+                if (distance[n] == INFINITY && !selected.get(n)) {
+                    distance[n] = distance[cell] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method: counts the dots the blue dot can reach.
+     *
+     * @return The number of dots, the blue dot excluded.
+     */
+    private int reachable() {
+        int head = 0;
+        int tail = 0;
+        Arrays.fill(reach, -1);
+        reach[dot] = 0;
+        queue[tail++] = dot;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int slot = topology.start(cell); slot < topology.end(cell); slot++) {
+                int n = topology.neighbour(slot);
+                if (reach[n] == -1 && !selected.get(n)) {
+                    reach[n] = reach[cell] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return tail - 1;
+    }
+
+    /**
+     * Helper method: returns the slot of a position in the transposition
+     * table, clearing it if it held another position.
+     *
+     * @param key The Zobrist key of the position.
+     * @return The slot.
+     */
+    private int slot(long key) {
+        int slot = (int) (key >>> (64 - TABLE_BITS));
+        if (tableKeys[slot] != key) {
+            tableKeys[slot] = key;
+            tableWin[slot] = Integer.MAX_VALUE;
+            tableNoWin[slot] = 0;
+            tableBest[slot] = -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Helper method: returns the moves array of a level of the search,
+     * allocating the arrays of the level on first use.
+     *
+     * @param level The level of the search.
+     * @return The moves array of the level.
+     */
+    private int[] ensureLevel(int level) {
+        if (level >= moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(16, 2 * level));
+            cuts = Arrays.copyOf(cuts, moves.length);
+            exact = Arrays.copyOf(exact, moves.length);
+            flows = Arrays.copyOf(flows, moves.length);
+            flowed = Arrays.copyOf(flowed, moves.length);
+            played = Arrays.copyOf(played, moves.length);
+        }
+        if (moves[level] == null) {
+            moves[level] = new int[size * size];
+            cuts[level] = new int[size * size];
+            flows[level] = new long[size * size * words];
+            flowed[level] = new boolean[size * size];
+        }
+        return moves[level];
+    }
+
+    /**
+     * Helper method: (re)allocates the buffers if the board size changed.
+     * The transposition table is cleared.
+     *
+     * @param size The size of the board.
+     */
+    private void ensureCapacity(int size) {
+        if (this.size == size) {
+            return;
+        }
+        this.size = size;
+        int cells = size * size;
+        topology = Topology.of(size);
+        distance = new int[cells];
+        reach = new int[cells];
+        queue = new int[cells];
+        order = new long[cells];
+        successor = new int[cells];
+        predecessor = new int[cells];
+        through = new boolean[cells];
+        words = (cells + 63) >>> 6;
+        onPaths = new long[words];
+        steps = new int[cells * Cells.NEIGHBOURS];
+        for (int cell = 0; cell < cells; cell++) {
+            for (int k = 0; k < Cells.NEIGHBOURS; k++) {
+                steps[cell * Cells.NEIGHBOURS + k] = Cells.neighbour(cell, k, size);
+            }
+        }
+        stack = new int[cells];
+        marks = new int[cells];
+        trail = new int[cells];
+        stamp = 0;
+        states = new int[2 * cells];
+        parent = new int[2 * cells];
+        seen = new int[2 * cells];
+        generation = 0;
+        moves = new int[0][];
+        cuts = new int[0][];
+        exact = new boolean[0];
+        flows = new long[0][];
+        flowed = new boolean[0][];
+        played = new int[0];
+        Arrays.fill(tableKeys, 0L);
+        Arrays.fill(tableWin, Integer.MAX_VALUE);
+        Arrays.fill(tableNoWin, 0);
+        Arrays.fill(tableBest, -1);
+    }
+
+    /**
+     * The main method solves the board of a given seed.
+     *
+     * @param args Command line program arguments.
+     *             $ java TrapSolver _SIZE_ _SEED_ _BUDGET_MS_
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        long budget = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+
+        GameModel gameModel = new GameModel(size, seed);
+        System.out.println(gameModel);
+        System.out.println(new TrapSolver(budget).solve(gameModel));
+    }
+
+}
@@ -0,0 +1,161 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * The class <b>ArrayQueue</b> that implements the <b>Queue</b> interface by
+ * storing elements in a ring buffer, i.e., an array whose front moves forward
+ * as elements are dequeued and whose rear wraps around to the start of the
+ * array. Unlike <b>LinkedQueue</b>, it allocates nothing per element: the
+ * array grows by doubling when it is full, unless the queue is bounded, in
+ * which case enqueuing onto a full queue fails.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class ArrayQueue<E> implements Queue<E> {
+
+    /** The initial capacity of an unbounded queue. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The elements, a power of two of them, from the front around to the rear. */
+    private Object[] elements;
+
+    /** The index of the front element. */
+    private int front;
+
+    /** The number of elements in the queue. */
+    private int size;
+
+    /** The largest number of elements, or -1 if the queue grows. */
+    private final int bound;
+
+    /**
+     * The constructor of an unbounded queue.
+     */
+    public ArrayQueue() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * The constructor of a queue of a given capacity.
+     *
+     * @param capacity The number of elements the queue holds before growing.
+     * @param bounded True if the queue never holds more than capacity
+     *                elements, and never grows.
+     */
+    public ArrayQueue(int capacity, boolean bounded) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.elements = new Object[Util.ceilPowerOfTwo(capacity)];
+        this.bound = bounded ? capacity : -1;
+    }
+
+    public void enqueue(final E element) throws IllegalArgumentException, IllegalStateException {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot enqueue a null element");
+        }
+        if (size == bound) {
+            throw new IllegalStateException("The queue is full");
+        }
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(front + size) & (elements.length - 1)] = element;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E dequeue() throws EmptyQueueException {
+        if (isEmpty()) {
+            throw new EmptyQueueException("No element to dequeue");
+        }
+        final E result = (E) elements[front];
+        elements[front] = null; // the queue does not keep the element alive
+        front = (front + 1) & (elements.length - 1);
+        --size;
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() throws EmptyQueueException {
+        if (isEmpty()) {
+            throw new EmptyQueueException("No element at peek");
+        }
+        return (E) elements[front];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Clears the queue from all elements. The slots of the elements are
+     * cleared in bulk so they can be garbage collected.
+     */
+    public void clear() {
+        int end = front + size;
+        if (end <= elements.length) {
+            Arrays.fill(elements, front, end, null);
+        } else {
+            Arrays.fill(elements, front, elements.length, null);
+            Arrays.fill(elements, 0, end - elements.length, null);
+        }
+        front = size = 0;
+    }
+
+    /**
+     * Helper method: doubles the array, moving the elements to its start.
+     */
+    private void grow() {
+        Object[] grown = new Object[elements.length * 2];
+        int first = elements.length - front;
+        System.arraycopy(elements, front, grown, 0, first);
+        System.arraycopy(elements, 0, grown, first, front);
+        elements = grown;
+        front = 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder str = new StringBuilder();
+        for (int k = 0; k < size; k++) {
+            str.append(elements[(front + k) & (elements.length - 1)]);
+        }
+        return str.toString();
+    }
+
+    /**
+     * The main method reflects a simple test with array queues.
+     */
+    public static void main(final String[] args) {
+        final ArrayQueue<Object> queue = new ArrayQueue<>(2, false);
+
+        final String str1 = "value1";
+        final String str2 = "value2";
+        final String str3 = "value3";
+        System.out.println(queue.isEmpty());
+
+        queue.enqueue(str1);
+        queue.enqueue(str2);
+        queue.enqueue(str3);
+        System.out.println(queue.size());
+
+        System.out.println(queue.isEmpty());
+
+        System.out.println(queue.dequeue());
+        System.out.println(queue.dequeue());
+        System.out.println(queue.dequeue());
+        System.out.println(queue.size());
+
+        System.out.println(queue.isEmpty());
+
+        queue.dequeue();
+    }
+
+}
@@ -0,0 +1,127 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * The class <b>ArrayStack</b> that implements the <b>Stack</b> interface by
+ * storing elements in an array, the top of the stack being at the end of the
+ * elements. Unlike <b>LinkedStack</b>, it allocates nothing per element: the
+ * array grows by doubling when it is full, unless the stack is bounded, in
+ * which case pushing onto a full stack fails.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class ArrayStack<E> implements Stack<E> {
+
+    /** The initial capacity of an unbounded stack. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The elements, from the bottom to the top of the stack. */
+    private Object[] elements;
+
+    /** The number of elements in the stack. */
+    private int size;
+
+    /** The largest number of elements, or -1 if the stack grows. */
+    private final int bound;
+
+    /**
+     * The constructor of an unbounded stack.
+     */
+    public ArrayStack() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * The constructor of a stack of a given capacity.
+     *
+     * @param capacity The number of elements the stack holds before growing.
+     * @param bounded True if the stack never holds more than capacity
+     *                elements, and never grows.
+     */
+    public ArrayStack(int capacity, boolean bounded) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.elements = new Object[capacity];
+        this.bound = bounded ? capacity : -1;
+    }
+
+    public void push(final E element) throws IllegalArgumentException, IllegalStateException {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot push a null element");
+        }
+        if (size == bound) {
+            throw new IllegalStateException("The stack is full");
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        }
+        elements[size++] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E pop() throws EmptyStackException {
+        if (isEmpty()) {
+            throw new EmptyStackException("No element to pop");
+        }
+        final E result = (E) elements[--size];
+        elements[size] = null; // the stack does not keep the element alive
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() throws EmptyStackException {
+        if (isEmpty()) {
+            throw new EmptyStackException("No element at peek");
+        }
+        return (E) elements[size - 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Clears the stack from all elements. The slots of the elements are
+     * cleared in bulk so they can be garbage collected.
+     */
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * The main method reflects a simple test with array stacks.
+     */
+    public static void main(final String[] args) {
+        final ArrayStack<Object> stack = new ArrayStack<>(2, false);
+
+        final String str1 = "value1";
+        final String str2 = "value2";
+        final String str3 = "value3";
+        System.out.println(stack.isEmpty());
+
+        stack.push(str1);
+        stack.push(str2);
+        stack.push(str3);
+        System.out.println(stack.size());
+
+        System.out.println(stack.isEmpty());
+
+        System.out.println(stack.pop());
+        System.out.println(stack.pop());
+        System.out.println(stack.pop());
+        System.out.println(stack.size());
+
+        System.out.println(stack.isEmpty());
+
+        stack.pop();
+    }
+
+}
@@ -0,0 +1,164 @@
+package util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The class <b>BitBoard</b> that holds a fixed number of bits packed into an
+ * array of <b>long</b> words. Each bit records a boolean state of one cell of
+ * a board, so a board of n cells only needs n / 64 words.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class BitBoard implements Cloneable, Serializable {
+
+    /**
+     * The version number of the serializable class associated by the
+     * serializable runtime.
+     */
+    private static final long serialVersionUID = 6216843425129571404L;
+
+    /** The number of bits held by the board. */
+    private final int length;
+
+    /** The words that hold the bits, the bit i is stored in words[i >> 6]. */
+    private long[] words;
+
+    /**
+     * The constructor of the class <b>BitBoard</b>. All the bits are cleared.
+     *
+     * @param length The number of bits held by the board.
+     */
+    public BitBoard(int length) {
+        this.length = length;
+        this.words = new long[(length + 63) >>> 6];
+    }
+
+    /**
+     * An instance method for getting the number of bits held by the board.
+     *
+     * @return The number of bits.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Checks if a bit is set.
+     *
+     * @param index The index of the bit.
+     * @return true if the bit is set; and false otherwise.
+     */
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param index The index of the bit.
+     */
+    public void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears a bit.
+     *
+     * @param index The index of the bit.
+     */
+    public void clear(int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Clears all the bits.
+     */
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Returns the number of words holding the bits.
+     *
+     * @return The number of words.
+     */
+    public int wordCount() {
+        return words.length;
+    }
+
+    /**
+     * Returns a word of the board, i.e., the bits from index * 64 to
+     * index * 64 + 63.
+     *
+     * @param index The index of the word.
+     * @return The word.
+     */
+    public long word(int index) {
+        return words[index];
+    }
+
+    /**
+     * Sets a word of the board, i.e., the bits from index * 64 to
+     * index * 64 + 63.
+     *
+     * @param index The index of the word.
+     * @param word The new value of the word.
+     */
+    public void setWord(int index, long word) {
+        words[index] = word;
+    }
+
+    /**
+     * Copies all the bits of another board of the same length.
+     *
+     * @param other The board to copy.
+     */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * Returns the number of bits that are set.
+     *
+     * @return The number of set bits.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BitBoard)) {
+            return false;
+        }
+        BitBoard other = (BitBoard) o;
+        return length == other.length && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * length + Arrays.hashCode(words);
+    }
+
+    @Override
+    public BitBoard clone() {
+        BitBoard cloned;
+        try {
+            cloned = (BitBoard) super.clone();
+            cloned.words = words.clone();
+        } catch (CloneNotSupportedException c) {
+            throw new RuntimeException("Object cannot be cloned");
+        }
+        return cloned;
+    }
+
+}
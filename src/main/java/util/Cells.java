@@ -0,0 +1,108 @@
+package util;
+
+/**
+ * The class <b>Cells</b> holds the static helpers to handle the dots of a
+ * board as packed int indices rather than <b>Point</b> objects: the dot
+ * (i,j) of a board of a given size has the index j*size+i. The neighbours of
+ * a dot are found with offsets precomputed per parity of the row, as odd and
+ * even rows are shifted against each other: the six neighbours, in order,
+ * are the two dots above, the dots on the left and on the right, and the two
+ * dots below. No helper allocates, so the coordinates of the dots of a turn
+ * of the game cost nothing to the garbage collector; <b>Point</b> is only
+ * used at the edge of the public interface.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class Cells {
+
+    /** The number of neighbours of a dot inside the board. */
+    public static final int NEIGHBOURS = 6;
+
+    /** The column offsets of the neighbours, on even rows and on odd rows. */
+    private static final int[][] COLUMN_OFFSETS = {{-1, 0, -1, 1, -1, 0}, {0, 1, -1, 1, 0, 1}};
+
+    /** The row offsets of the neighbours. */
+    private static final int[] ROW_OFFSETS = {-1, -1, 0, 0, 1, 1};
+
+    /**
+     * Packs the coordinates of a dot into its index.
+     *
+     * @param i The x coordinate (column) of the dot.
+     * @param j The y coordinate (row) of the dot.
+     * @param size The size of the board.
+     * @return the index j*size+i of the dot.
+     */
+    public static int index(int i, int j, int size) {
+        return j * size + i;
+    }
+
+    /**
+     * Returns the x coordinate (column) of a dot.
+     *
+     * @param index The index of the dot.
+     * @param size The size of the board.
+     * @return the column of the dot.
+     */
+    public static int column(int index, int size) {
+        return index % size;
+    }
+
+    /**
+     * Returns the y coordinate (row) of a dot.
+     *
+     * @param index The index of the dot.
+     * @param size The size of the board.
+     * @return the row of the dot.
+     */
+    public static int row(int index, int size) {
+        return index / size;
+    }
+
+    /**
+     * Checks if the dot (i,j) is on the board.
+     *
+     * @param i The x coordinate of the dot.
+     * @param j The y coordinate of the dot.
+     * @param size The size of the board.
+     * @return true iff the dot is on the board.
+     */
+    public static boolean contains(int i, int j, int size) {
+        return i >= 0 && i < size && j >= 0 && j < size;
+    }
+
+    /**
+     * Checks if a dot is on the border of the board.
+     *
+     * @param index The index of the dot.
+     * @param size The size of the board.
+     * @return true iff the dot is on the first or last row or column.
+     */
+    public static boolean isOnBorder(int index, int size) {
+        int i = index % size;
+        int j = index / size;
+        return i == 0 || i == size - 1 || j == 0 || j == size - 1;
+    }
+
+    /**
+     * Returns the k-th neighbour of a dot.
+     *
+     * @param index The index of the dot.
+     * @param k The number of the neighbour, from 0 to 5.
+     * @param size The size of the board.
+     * @return the index of the neighbour, or -1 if it is off the board.
+     */
+    public static int neighbour(int index, int k, int size) {
+        int j = index / size;
+        int ni = index % size + COLUMN_OFFSETS[j & 1][k];
+        int nj = j + ROW_OFFSETS[k];
+        return contains(ni, nj, size) ? nj * size + ni : -1;
+    }
+
+    /**
+     * The class <b>Cells</b> cannot be instantiated.
+     */
+    private Cells() {
+    }
+
+}
@@ -0,0 +1,131 @@
+package util;
+
+/**
+ * The class <b>IntQueue</b> is a queue of int values, e.g., of the indices of
+ * the dots of a breadth-first search, stored in a ring buffer like
+ * <b>ArrayQueue</b> but without boxing the values. Clearing the queue takes
+ * constant time, as there are no references to release. The queue grows by
+ * doubling when it is full, unless it is bounded, in which case enqueuing
+ * onto a full queue fails.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class IntQueue {
+
+    /** The initial capacity of an unbounded queue. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The values, a power of two of them, from the front around to the rear. */
+    private int[] values;
+
+    /** The index of the front value. */
+    private int front;
+
+    /** The number of values in the queue. */
+    private int size;
+
+    /** The largest number of values, or -1 if the queue grows. */
+    private final int bound;
+
+    /**
+     * The constructor of an unbounded queue.
+     */
+    public IntQueue() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * The constructor of a queue of a given capacity.
+     *
+     * @param capacity The number of values the queue holds before growing.
+     * @param bounded True if the queue never holds more than capacity
+     *                values, and never grows.
+     */
+    public IntQueue(int capacity, boolean bounded) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.values = new int[Util.ceilPowerOfTwo(capacity)];
+        this.bound = bounded ? capacity : -1;
+    }
+
+    /**
+     * Puts a value onto the rear of the queue.
+     * @param value The value.
+     * @throws IllegalStateException Thrown if the queue is bounded and full.
+     */
+    public void enqueue(int value) throws IllegalStateException {
+        if (size == bound) {
+            throw new IllegalStateException("The queue is full");
+        }
+        if (size == values.length) {
+            grow();
+        }
+        values[(front + size) & (values.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Removes and returns the value at the front of the queue.
+     * @return The front value of the queue.
+     * @throws EmptyQueueException Thrown if the queue is empty.
+     */
+    public int dequeue() throws EmptyQueueException {
+        if (size == 0) {
+            throw new EmptyQueueException("No element to dequeue");
+        }
+        int result = values[front];
+        front = (front + 1) & (values.length - 1);
+        --size;
+        return result;
+    }
+
+    /**
+     * Returns the value at the front of the queue without removing it.
+     * @return The front value of the queue.
+     * @throws EmptyQueueException Thrown if the queue is empty.
+     */
+    public int peek() throws EmptyQueueException {
+        if (size == 0) {
+            throw new EmptyQueueException("No element at peek");
+        }
+        return values[front];
+    }
+
+    /**
+     * Checks if the queue is empty.
+     * @return true if this queue is empty; and false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of values in the queue.
+     * @return queue's size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Clears the queue from all values, in constant time.
+     */
+    public void clear() {
+        front = size = 0;
+    }
+
+    /**
+     * Helper method: doubles the array, moving the values to its start.
+     */
+    private void grow() {
+        int[] grown = new int[values.length * 2];
+        int first = values.length - front;
+        System.arraycopy(values, front, grown, 0, first);
+        System.arraycopy(values, 0, grown, first, front);
+        values = grown;
+        front = 0;
+    }
+
+}
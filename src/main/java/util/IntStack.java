@@ -0,0 +1,114 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * The class <b>IntStack</b> is a stack of int values, e.g., of the indices of
+ * the dots of a depth-first search, stored in an array like
+ * <b>ArrayStack</b> but without boxing the values. Clearing the stack takes
+ * constant time, as there are no references to release. The stack grows by
+ * doubling when it is full, unless it is bounded, in which case pushing onto
+ * a full stack fails.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class IntStack {
+
+    /** The initial capacity of an unbounded stack. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The values, from the bottom to the top of the stack. */
+    private int[] values;
+
+    /** The number of values in the stack. */
+    private int size;
+
+    /** The largest number of values, or -1 if the stack grows. */
+    private final int bound;
+
+    /**
+     * The constructor of an unbounded stack.
+     */
+    public IntStack() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * The constructor of a stack of a given capacity.
+     *
+     * @param capacity The number of values the stack holds before growing.
+     * @param bounded True if the stack never holds more than capacity
+     *                values, and never grows.
+     */
+    public IntStack(int capacity, boolean bounded) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.values = new int[capacity];
+        this.bound = bounded ? capacity : -1;
+    }
+
+    /**
+     * Puts a value onto the top of this stack.
+     * @param value The value.
+     * @throws IllegalStateException Thrown if the stack is bounded and full.
+     */
+    public void push(int value) throws IllegalStateException {
+        if (size == bound) {
+            throw new IllegalStateException("The stack is full");
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Removes and returns the value at the top of the stack.
+     * @return The top value of the stack.
+     * @throws EmptyStackException Thrown if the stack is empty.
+     */
+    public int pop() throws EmptyStackException {
+        if (size == 0) {
+            throw new EmptyStackException("No element to pop");
+        }
+        return values[--size];
+    }
+
+    /**
+     * Returns the value at the top of the stack without removing it.
+     * @return The top value of the stack.
+     * @throws EmptyStackException Thrown if the stack is empty.
+     */
+    public int peek() throws EmptyStackException {
+        if (size == 0) {
+            throw new EmptyStackException("No element at peek");
+        }
+        return values[size - 1];
+    }
+
+    /**
+     * Checks if the stack is empty.
+     * @return true if this stack is empty; and false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of values in the stack.
+     * @return stack's size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Clears the stack from all values, in constant time.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+}
@@ -77,6 +77,7 @@ public class LinkedStack<E> implements Stack<E> {
 
     public void clear() {
         top = null;
+        size = 0;
     }
 
     /**
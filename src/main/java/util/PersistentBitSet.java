@@ -0,0 +1,188 @@
+package util;
+
+/**
+ * The class <b>PersistentBitSet</b> that holds an immutable set of bits. The
+ * bits are packed into chunks of 32 <b>long</b> words, which are the leaves
+ * of a tree of branching factor 32. Setting or clearing a bit returns a new
+ * version of the set that copies only the path from the root to the chunk of
+ * the bit, and shares all the other chunks with the previous version. A new
+ * version costs O(log n) time and memory, and all versions stay readable.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class PersistentBitSet {
+
+    /** The number of bits of a child number in the tree. */
+    private static final int BITS = 5;
+
+    /** The number of children of a node, and of words in a chunk. */
+    private static final int WIDTH = 1 << BITS;
+
+    /** The mask of a child number in the tree. */
+    private static final int MASK = WIDTH - 1;
+
+    /** The number of bits held by the set. */
+    private final int length;
+
+    /**
+     * The shift of the child number of the root in a word index, 0 if the
+     * root is a chunk.
+     */
+    private final int shift;
+
+    /**
+     * The root of the tree: a chunk (long[]) if shift is 0, or an array of
+     * children (Object[]). A missing child (null) has all its bits cleared.
+     */
+    private final Object root;
+
+    /**
+     * The constructor of the class <b>PersistentBitSet</b>.
+     *
+     * @param length The number of bits held by the set.
+     * @param shift The shift of the child number of the root.
+     * @param root The root of the tree.
+     */
+    private PersistentBitSet(int length, int shift, Object root) {
+        this.length = length;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    /**
+     * Creates an empty set, i.e., all the bits are cleared.
+     *
+     * @param length The number of bits held by the set.
+     * @return The empty set.
+     */
+    public static PersistentBitSet empty(int length) {
+        int words = (length + 63) >>> 6;
+        int shift = 0;
+        while ((long) WIDTH << shift < words) {
+            shift += BITS;
+        }
+        return new PersistentBitSet(length, shift, null);
+    }
+
+    /**
+     * Creates a set holding the same bits as a board.
+     *
+     * @param board The board to copy.
+     * @return The set.
+     */
+    public static PersistentBitSet of(BitBoard board) {
+        PersistentBitSet set = empty(board.length());
+        return new PersistentBitSet(set.length, set.shift, build(board, set.shift, 0));
+    }
+
+    /**
+     * An instance method for getting the number of bits held by the set.
+     *
+     * @return The number of bits.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Checks if a bit is set.
+     *
+     * @param index The index of the bit.
+     * @return true if the bit is set; and false otherwise.
+     */
+    public boolean get(int index) {
+        int word = index >>> 6;
+        Object node = root;
+        for (int s = shift; s > 0 && node != null; s -= BITS) {
+            node = ((Object[]) node)[(word >>> s) & MASK];
+        }
+        return node != null && (((long[]) node)[word & MASK] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the version of the set where a bit is set.
+     *
+     * @param index The index of the bit.
+     * @return The new version, or this set if the bit was already set.
+     */
+    public PersistentBitSet with(int index) {
+        return get(index) ? this : new PersistentBitSet(length, shift,
+                flip(root, shift, index >>> 6, 1L << index));
+    }
+
+    /**
+     * Returns the version of the set where a bit is cleared.
+     *
+     * @param index The index of the bit.
+     * @return The new version, or this set if the bit was already cleared.
+     */
+    public PersistentBitSet without(int index) {
+        return !get(index) ? this : new PersistentBitSet(length, shift,
+                flip(root, shift, index >>> 6, 1L << index));
+    }
+
+    /**
+     * Copies all the bits of the set into a board of the same length.
+     *
+     * @param board The board to fill.
+     */
+    public void copyTo(BitBoard board) {
+        copy(root, shift, 0, board);
+    }
+
+    /**
+     * Helper method: builds the subtree covering the words from a given one.
+     */
+    private static Object build(BitBoard board, int shift, int first) {
+        if (shift == 0) {
+            long[] chunk = new long[WIDTH];
+            boolean empty = true;
+            for (int w = 0; w < WIDTH && first + w < board.wordCount(); w++) {
+                chunk[w] = board.word(first + w);
+                empty &= chunk[w] == 0;
+            }
+            return empty ? null : chunk;
+        }
+        Object[] node = new Object[WIDTH];
+        boolean empty = true;
+        for (int c = 0; c < WIDTH && first + (c << shift) < board.wordCount(); c++) {
+            node[c] = build(board, shift - BITS, first + (c << shift));
+            empty &= node[c] == null;
+        }
+        return empty ? null : node;
+    }
+
+    /**
+     * Helper method: returns a copy of the path to a word where some bits are
+     * flipped, sharing all the other nodes.
+     */
+    private static Object flip(Object node, int shift, int word, long bits) {
+        if (shift == 0) {
+            long[] chunk = node == null ? new long[WIDTH] : ((long[]) node).clone();
+            chunk[word & MASK] ^= bits;
+            return chunk;
+        }
+        Object[] copy = node == null ? new Object[WIDTH] : ((Object[]) node).clone();
+        int c = (word >>> shift) & MASK;
+        copy[c] = flip(copy[c], shift - BITS, word, bits);
+        return copy;
+    }
+
+    /**
+     * Helper method: copies the words of a subtree into a board.
+     */
+    private static void copy(Object node, int shift, int first, BitBoard board) {
+        if (shift == 0) {
+            for (int w = 0; w < WIDTH && first + w < board.wordCount(); w++) {
+                board.setWord(first + w, node == null ? 0L : ((long[]) node)[w]);
+            }
+            return;
+        }
+        for (int c = 0; c < WIDTH && first + (c << shift) < board.wordCount(); c++) {
+            copy(node == null ? null : ((Object[]) node)[c], shift - BITS,
+                    first + (c << shift), board);
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The class <b>Topology</b> holds the shape of a board of a given size: the
+ * neighbours of every dot and the dots on the border. The neighbours are
+ * stored in compressed rows: the neighbours of the dot of index c are the
+ * slots start(c) to end(c) - 1, in the order of <b>Cells</b> and without the
+ * neighbours off the board. The border is a bitmap of the dots.
+ *
+ * A topology is immutable, so the topology of each size is created once and
+ * shared by all the games, searches and players of that size.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class Topology {
+
+    /** The topologies of the sizes already used. */
+    private static final ConcurrentMap<Integer, Topology> TOPOLOGIES = new ConcurrentHashMap<>();
+
+    /** The size of the board. */
+    private final int size;
+
+    /** The first slot of the neighbours of every dot, and the number of slots. */
+    private final int[] starts;
+
+    /** The index of the neighbour in every slot. */
+    private final int[] neighbours;
+
+    /** The bits of the dots on the border, 64 dots per word. */
+    private final long[] border;
+
+    /**
+     * The constructor of the class <b>Topology</b>.
+     *
+     * @param size The size of the board.
+     */
+    private Topology(int size) {
+        int cells = size * size;
+        this.size = size;
+        starts = new int[cells + 1];
+        border = new long[(cells + 63) >>> 6];
+        int[] slots = new int[cells * Cells.NEIGHBOURS];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            starts[cell] = count;
+            for (int k = 0; k < Cells.NEIGHBOURS; k++) {
+                int n = Cells.neighbour(cell, k, size);
+                if (n != -1) {
+                    slots[count++] = n;
+                }
+            }
+            if (Cells.isOnBorder(cell, size)) {
+                border[cell >>> 6] |= 1L << cell;
+            }
+        }
+        starts[cells] = count;
+        neighbours = new int[count];
+        System.arraycopy(slots, 0, neighbours, 0, count);
+    }
+
+    /**
+     * Returns the topology of a board of a given size.
+     *
+     * @param size The size of the board.
+     * @return The topology.
+     */
+    public static Topology of(int size) {
+        return TOPOLOGIES.computeIfAbsent(size, Topology::new);
+    }
+
+    /**
+     * Returns the size of the board.
+     *
+     * @return The size of the board.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of dots of the board.
+     *
+     * @return The number of dots, size*size.
+     */
+    public int cells() {
+        return starts.length - 1;
+    }
+
+    /**
+     * Returns the first slot of the neighbours of a dot.
+     *
+     * @param cell The index of the dot.
+     * @return The first slot.
+     */
+    public int start(int cell) {
+        return starts[cell];
+    }
+
+    /**
+     * Returns the slot after the last neighbour of a dot.
+     *
+     * @param cell The index of the dot.
+     * @return The slot after the last one.
+     */
+    public int end(int cell) {
+        return starts[cell + 1];
+    }
+
+    /**
+     * Returns the neighbour of a slot.
+     *
+     * @param slot The slot, between start(c) and end(c) - 1 for the dot c.
+     * @return The index of the neighbour.
+     */
+    public int neighbour(int slot) {
+        return neighbours[slot];
+    }
+
+    /**
+     * Checks if a dot is on the border of the board.
+     *
+     * @param cell The index of the dot.
+     * @return true iff the dot is on the first or last row or column.
+     */
+    public boolean isOnBorder(int cell) {
+        return (border[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+}
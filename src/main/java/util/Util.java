@@ -17,6 +17,31 @@ public class Util {
         return str.toString();
     }
     
+    /**
+     * Mixes the bits of a value (the finalizer of the SplitMix64 generator),
+     * e.g., to derive independent seeds from consecutive numbers.
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the smallest power of two greater than or equal to a value,
+     * e.g., the length of a ring buffer indexed with a mask.
+     * @param value The value, between 1 and 2^30.
+     * @return The power of two.
+     */
+    public static int ceilPowerOfTwo(int value) {
+        if (value < 1 || value > (1 << 30)) {
+            throw new IllegalArgumentException("No power of two for " + value);
+        }
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
     public static void main(String[] args) {
         int[][] m = new int[][]{{0,1,2}, {0,1,2}, {0,1,2}};
         System.out.print(matrixToString(m));
@@ -0,0 +1,97 @@
+package util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The class <b>Zobrist</b> that holds the random keys hashing the positions
+ * of a board of a given size. The hash of a position is the xor of the key of
+ * each selected cell and of the key of the cell of the blue dot, so selecting
+ * a cell or moving the blue dot updates the hash with one or two xors.
+ *
+ * The keys are drawn from a fixed seed, so the hash of a position is the same
+ * in every run and on every machine, and the keys of each size are created
+ * once and shared.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public final class Zobrist {
+
+    /** The seed of the keys. */
+    private static final long SEED = 0x43544453L;
+
+    /** The keys of the sizes already used. */
+    private static final ConcurrentMap<Integer, Zobrist> TABLES = new ConcurrentHashMap<>();
+
+    /** The key of every selected cell. */
+    private final long[] selectedKeys;
+
+    /** The key of every cell of the blue dot. */
+    private final long[] dotKeys;
+
+    /**
+     * The constructor of the class <b>Zobrist</b>.
+     *
+     * @param size The size of the board.
+     */
+    private Zobrist(int size) {
+        selectedKeys = new long[size * size];
+        dotKeys = new long[size * size];
+        for (int cell = 0; cell < size * size; cell++) {
+            selectedKeys[cell] = Util.mix64(SEED + 2L * cell);
+            dotKeys[cell] = Util.mix64(SEED + 2L * cell + 1);
+        }
+    }
+
+    /**
+     * Returns the keys of a board of a given size.
+     *
+     * @param size The size of the board.
+     * @return The keys.
+     */
+    public static Zobrist of(int size) {
+        return TABLES.computeIfAbsent(size, Zobrist::new);
+    }
+
+    /**
+     * Returns the key of a selected cell.
+     *
+     * @param index The index of the cell.
+     * @return The key.
+     */
+    public long selected(int index) {
+        return selectedKeys[index];
+    }
+
+    /**
+     * Returns the key of the cell of the blue dot.
+     *
+     * @param index The index of the cell, or -1 once the blue dot has exited
+     *              the board.
+     * @return The key, 0 for -1.
+     */
+    public long dot(int index) {
+        return index == -1 ? 0L : dotKeys[index];
+    }
+
+    /**
+     * Computes the hash of a whole position.
+     *
+     * @param selected The selected cells.
+     * @param dot The index of the cell of the blue dot, or -1.
+     * @return The hash.
+     */
+    public long hash(BitBoard selected, int dot) {
+        long hash = dot(dot);
+        for (int w = 0; w < selected.wordCount(); w++) {
+            long bits = selected.word(w);
+            while (bits != 0) {
+                hash ^= selectedKeys[(w << 6) + Long.numberOfTrailingZeros(bits)];
+                bits &= bits - 1;
+            }
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,126 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The class <b>ChangeSetTest</b> checks the change sets published by
+ * <b>GameEngine</b> against a diff of the whole board: over random games of
+ * moves, undos, redos and jumps, every dot whose status has changed must be
+ * in the change set of the change.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class ChangeSetTest {
+
+    /** The number of games played. */
+    private static final int GAMES = 200;
+
+    /** The number of changes of each game. */
+    private static final int CHANGES = 60;
+
+    @Test
+    public void changesCoverTheBoardDiff() {
+        Random random = new Random(17);
+        for (int game = 0; game < GAMES; game++) {
+            int size = 5 + random.nextInt(12);
+            GameEngine gameEngine = new GameEngine(new GameModel(size, random.nextLong()),
+                    new EscapeSearch(new Random(game)));
+            int[] before = statuses(gameEngine.getGameModel());
+            for (int change = 0; change < CHANGES; change++) {
+                String action = change(gameEngine, random);
+                int[] after = statuses(gameEngine.getGameModel());
+                ChangeSet changes = gameEngine.getChanges();
+                if (!changes.isAll()) {
+                    boolean[] listed = new boolean[after.length];
+                    for (int k = 0; k < changes.size(); k++) {
+                        listed[changes.get(k)] = true;
+                    }
+                    for (int index = 0; index < after.length; index++) {
+                        assertTrue(action + " of game " + game + " misses the dot " + index,
+                                before[index] == after[index] || listed[index]);
+                    }
+                }
+                before = after;
+            }
+        }
+    }
+
+    @Test
+    public void jumpChangesTheWholeBoard() {
+        Random random = new Random(5);
+        GameEngine gameEngine = new GameEngine(new GameModel(9, 3L), new EscapeSearch(random));
+        while (gameEngine.getStatus() == GameEngine.PLAYING) {
+            playRandom(gameEngine, random);
+        }
+        gameEngine.jumpTo(gameEngine.getHistory().get(0));
+        assertTrue(gameEngine.getChanges().isAll());
+        assertEquals(0, gameEngine.getGameModel().getNumberOfSteps());
+    }
+
+    /**
+     * Helper method: makes a random change of a game.
+     *
+     * @param gameEngine The engine of the game.
+     * @param random The random generator of the changes.
+     * @return The name of the change.
+     */
+    private static String change(GameEngine gameEngine, Random random) {
+        int choice = random.nextInt(10);
+        if (choice < 2 && !gameEngine.isUndoStackEmpty()) {
+            gameEngine.undo();
+            return "undo";
+        } else if (choice < 4 && !gameEngine.isRedoStackEmpty()) {
+            gameEngine.redo();
+            return "redo";
+        } else if (choice < 5) {
+            List<Snapshot> history = gameEngine.getHistory();
+            gameEngine.jumpTo(history.get(random.nextInt(history.size())));
+            return "jump";
+        } else if (gameEngine.getStatus() != GameEngine.PLAYING) {
+            gameEngine.reset();
+            return "reset";
+        }
+        playRandom(gameEngine, random);
+        return "move";
+    }
+
+    /**
+     * Helper method: plays a random available dot, other than the blue dot.
+     *
+     * @param gameEngine The engine of the game.
+     * @param random The random generator of the moves.
+     */
+    private static void playRandom(GameEngine gameEngine, Random random) {
+        GameModel gameModel = gameEngine.getGameModel();
+        int size = gameModel.getSize();
+        int cells = size * size;
+        int from = random.nextInt(cells);
+        for (int k = 0; k < cells; k++) {
+            int index = (from + k) % cells;
+            if (gameModel.getCurrentStatus(index % size, index / size) == GameModel.AVAILABLE) {
+                gameEngine.play(index % size, index / size);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Helper method: returns the status of every dot of a model.
+     *
+     * @param gameModel The model of the game.
+     * @return The statuses, indexed by j*size+i.
+     */
+    private static int[] statuses(GameModel gameModel) {
+        int size = gameModel.getSize();
+        int[] statuses = new int[size * size];
+        for (int index = 0; index < statuses.length; index++) {
+            statuses[index] = gameModel.getCurrentStatus(index % size, index / size);
+        }
+        return statuses;
+    }
+
+}
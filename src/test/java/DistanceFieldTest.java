@@ -0,0 +1,91 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The class <b>DistanceFieldTest</b> checks the incremental repairs of the
+ * <b>DistanceField</b> of a model against a field computed from scratch:
+ * after every selection and unselection, and after every restore of another
+ * model, repaired one changed dot at a time or computed again.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class DistanceFieldTest {
+
+    /** The number of boards checked. */
+    private static final int BOARDS = 100;
+
+    /** The number of changes of each board. */
+    private static final int CHANGES = 100;
+
+    @Test
+    public void blockAndUnblockMatchRecompute() {
+        Random random = new Random(11);
+        for (int board = 0; board < BOARDS; board++) {
+            int size = 4 + random.nextInt(16);
+            GameModel gameModel = new GameModel(size, random.nextLong());
+            gameModel.getDistanceField();
+            for (int change = 0; change < CHANGES; change++) {
+                int index = random.nextInt(size * size);
+                if (index == gameModel.getCurrentIndex()) {
+                    continue;
+                }
+                if (gameModel.isAvailable(index)) {
+                    gameModel.select(index % size, index / size);
+                } else {
+                    gameModel.unselect(index % size, index / size);
+                }
+                assertField("change " + change + " of board " + board, gameModel);
+            }
+        }
+    }
+
+    @Test
+    public void restoreMatchesRecompute() {
+        Random random = new Random(13);
+        for (int board = 0; board < BOARDS; board++) {
+            int size = 4 + random.nextInt(16);
+            GameModel gameModel = new GameModel(size, random.nextLong());
+            gameModel.getDistanceField();
+            GameModel other = gameModel.clone();
+            for (int change = 0; change < CHANGES; change++) {
+                // mostly a few dots, repaired one at a time, sometimes more
+                // than size dots, computed again
+                int dots = random.nextInt(8) == 0 ? 2 * size : 1 + random.nextInt(3);
+                for (int k = 0; k < dots; k++) {
+                    int index = random.nextInt(size * size);
+                    if (index == other.getCurrentIndex()) {
+                        continue;
+                    }
+                    if (other.isAvailable(index)) {
+                        other.select(index % size, index / size);
+                    } else {
+                        other.unselect(index % size, index / size);
+                    }
+                }
+                gameModel.restore(other);
+                assertField("restore " + change + " of board " + board, gameModel);
+            }
+        }
+    }
+
+    /**
+     * Helper method: compares the field of a model with the field of a copy
+     * of the model, computed from scratch.
+     *
+     * @param message The description of the change checked.
+     * @param gameModel The model, with its field kept up to date.
+     */
+    private static void assertField(String message, GameModel gameModel) {
+        DistanceField field = gameModel.getDistanceField();
+        DistanceField fresh = gameModel.clone().getDistanceField();
+        int cells = gameModel.getSize() * gameModel.getSize();
+        for (int index = 0; index < cells; index++) {
+            assertEquals(message + ", dot " + index,
+                    fresh.getDistance(index), field.getDistance(index));
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The class <b>GameEngineTest</b> checks the moves split into a selection
+ * and a step of the blue dot: the step completes the move of the selection,
+ * a single undo takes back both, and a step without a selection is rejected.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class GameEngineTest {
+
+    /** The size of the board. */
+    private static final int SIZE = 9;
+
+    /** The engine of the game. */
+    private GameEngine gameEngine;
+
+    @Before
+    public void setUp() {
+        gameEngine = new GameEngine(new GameModel(SIZE, 3L), new EscapeSearch());
+    }
+
+    @Test
+    public void selectAdvanceUndo() {
+        GameModel gameModel = gameEngine.getGameModel();
+        int dot = gameModel.getCurrentIndex();
+        int move = available(gameModel);
+        assertTrue(gameEngine.select(move % SIZE, move / SIZE));
+        assertEquals(dot, gameModel.getCurrentIndex());
+
+        assertEquals(GameEngine.PLAYING, gameEngine.advance());
+        assertTrue(dot != gameModel.getCurrentIndex());
+        assertEquals(2, gameEngine.getHistory().size());
+        assertEquals(gameModel.getCurrentIndex(), gameEngine.getSnapshot().getCurrentIndex());
+        assertEquals(move, gameEngine.getSnapshot().getMove());
+
+        gameEngine.undo();
+        assertEquals(dot, gameModel.getCurrentIndex());
+        assertEquals(GameModel.AVAILABLE, gameModel.getCurrentStatus(move % SIZE, move / SIZE));
+        assertTrue(gameEngine.isUndoStackEmpty());
+        assertEquals(dot, gameEngine.getHistory().get(0).getCurrentIndex());
+
+        gameEngine.redo();
+        assertEquals(gameEngine.getSnapshot().getCurrentIndex(), gameModel.getCurrentIndex());
+        assertTrue(dot != gameModel.getCurrentIndex());
+    }
+
+    @Test
+    public void advanceBeforeAnyMoveIsRejected() {
+        int dot = gameEngine.getGameModel().getCurrentIndex();
+        assertAdvanceRejected();
+        assertEquals(dot, gameEngine.getGameModel().getCurrentIndex());
+        assertEquals(dot, gameEngine.getHistory().get(0).getCurrentIndex());
+    }
+
+    @Test
+    public void secondAdvanceIsRejected() {
+        int move = available(gameEngine.getGameModel());
+        gameEngine.select(move % SIZE, move / SIZE);
+        gameEngine.advance();
+        int dot = gameEngine.getGameModel().getCurrentIndex();
+        assertAdvanceRejected();
+        assertEquals(dot, gameEngine.getGameModel().getCurrentIndex());
+        assertEquals(2, gameEngine.getHistory().size());
+    }
+
+    @Test
+    public void advanceAfterPlayIsRejected() {
+        int move = available(gameEngine.getGameModel());
+        gameEngine.play(move % SIZE, move / SIZE);
+        assertAdvanceRejected();
+    }
+
+    /**
+     * Helper method: checks that the blue dot cannot advance.
+     */
+    private void assertAdvanceRejected() {
+        try {
+            gameEngine.advance();
+            fail("Advanced without a selection");
+        } catch (IllegalStateException e) {
+            // no selection waits for the step of the blue dot
+        }
+    }
+
+    /**
+     * Helper method: returns the first AVAILABLE dot of a model.
+     *
+     * @param gameModel The model of the game.
+     * @return The index j*size+i of the dot.
+     */
+    private static int available(GameModel gameModel) {
+        for (int index = 0; ; index++) {
+            if (gameModel.getCurrentStatus(index % SIZE, index / SIZE) == GameModel.AVAILABLE) {
+                return index;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * The class <b>TrapSolverTest</b> pins the fewest moves to trap the blue dot
+ * on seeded 9x9 boards, found within a time budget of a second, and plays
+ * the winning moves against the blue dot of the game.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class TrapSolverTest {
+
+    /** The size of the boards. */
+    private static final int SIZE = 9;
+
+    /** The time budget of a search, in milliseconds. */
+    private static final long BUDGET = 1000;
+
+    /** The seeds of the boards, the easiest first, and their fewest moves. */
+    private static final long[][] BOARDS = {{5, 6}, {2, 7}, {1, 7}, {7, 12}, {3, 11}};
+
+    @Test
+    public void solvesSeededBoardsWithinBudget() {
+        for (long[] board : BOARDS) {
+            long start = System.nanoTime();
+            TrapSolver.Solution solution = new TrapSolver(BUDGET).solve(new GameModel(SIZE, board[0]));
+            long elapsed = (System.nanoTime() - start) / 1000000L;
+            assertEquals("seed " + board[0], board[1], solution.getSteps());
+            assertEquals("seed " + board[0], board[1], solution.getMoves().length);
+            assertTrue("seed " + board[0] + " took " + elapsed + " ms", elapsed < BUDGET);
+        }
+    }
+
+    @Test
+    public void movesTrapTheBlueDot() {
+        for (long[] board : BOARDS) {
+            int[] moves = new TrapSolver(BUDGET).solve(new GameModel(SIZE, board[0])).getMoves();
+            GameEngine gameEngine = new GameEngine(new GameModel(SIZE, board[0]), new EscapeSearch());
+            for (int move : moves) {
+                assertEquals("seed " + board[0], GameEngine.PLAYING, gameEngine.getStatus());
+                gameEngine.play(move % SIZE, move / SIZE);
+            }
+            assertEquals("seed " + board[0], GameEngine.WON, gameEngine.getStatus());
+        }
+    }
+
+}
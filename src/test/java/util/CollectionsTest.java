@@ -0,0 +1,201 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.function.IntFunction;
+import org.junit.Test;
+
+/**
+ * The class <b>CollectionsTest</b> checks the array-based queues and stacks
+ * against <b>ArrayDeque</b>: random sequences of insertions, removals, peeks
+ * and clears are applied to both, with small capacities so the ring buffers
+ * wrap around, the unbounded collections grow, and the bounded ones fill.
+ *
+ * @author  Amr ElShafei
+ * @version 2.0
+ */
+public class CollectionsTest {
+
+    /** The number of operations of each run. */
+    private static final int OPERATIONS = 20000;
+
+    /** The capacity of the bounded collections, not a power of two. */
+    private static final int BOUND = 5;
+
+    /**
+     * The interface <b>Subject</b> that adapts a collection under test to
+     * long values.
+     */
+    private interface Subject {
+
+        /** Inserts a value, and returns it as stored, e.g., cast to an int. */
+        long add(long value);
+
+        /** Removes the next value. */
+        long remove();
+
+        /** Returns the next value. */
+        long peek();
+
+        /** Returns the number of values. */
+        int size();
+
+        /** Checks if there is no value. */
+        boolean isEmpty();
+
+        /** Removes all the values. */
+        void clear();
+
+    }
+
+    @Test
+    public void arrayQueue() {
+        check(true, capacity -> {
+            ArrayQueue<Long> queue = capacity == 0 ? new ArrayQueue<>()
+                    : new ArrayQueue<>(Math.abs(capacity), capacity > 0);
+            return new Subject() {
+                public long add(long value) { queue.enqueue(value); return value; }
+                public long remove() { return queue.dequeue(); }
+                public long peek() { return queue.peek(); }
+                public int size() { return queue.size(); }
+                public boolean isEmpty() { return queue.isEmpty(); }
+                public void clear() { queue.clear(); }
+            };
+        });
+    }
+
+    @Test
+    public void intQueue() {
+        check(true, capacity -> {
+            IntQueue queue = capacity == 0 ? new IntQueue()
+                    : new IntQueue(Math.abs(capacity), capacity > 0);
+            return new Subject() {
+                public long add(long value) { queue.enqueue((int) value); return (int) value; }
+                public long remove() { return queue.dequeue(); }
+                public long peek() { return queue.peek(); }
+                public int size() { return queue.size(); }
+                public boolean isEmpty() { return queue.isEmpty(); }
+                public void clear() { queue.clear(); }
+            };
+        });
+    }
+
+    @Test
+    public void arrayStack() {
+        check(false, capacity -> {
+            ArrayStack<Long> stack = capacity == 0 ? new ArrayStack<>()
+                    : new ArrayStack<>(Math.abs(capacity), capacity > 0);
+            return new Subject() {
+                public long add(long value) { stack.push(value); return value; }
+                public long remove() { return stack.pop(); }
+                public long peek() { return stack.peek(); }
+                public int size() { return stack.size(); }
+                public boolean isEmpty() { return stack.isEmpty(); }
+                public void clear() { stack.clear(); }
+            };
+        });
+    }
+
+    @Test
+    public void intStack() {
+        check(false, capacity -> {
+            IntStack stack = capacity == 0 ? new IntStack()
+                    : new IntStack(Math.abs(capacity), capacity > 0);
+            return new Subject() {
+                public long add(long value) { stack.push((int) value); return (int) value; }
+                public long remove() { return stack.pop(); }
+                public long peek() { return stack.peek(); }
+                public int size() { return stack.size(); }
+                public boolean isEmpty() { return stack.isEmpty(); }
+                public void clear() { stack.clear(); }
+            };
+        });
+    }
+
+    @Test
+    public void longStack() {
+        check(false, capacity -> {
+            LongStack stack = capacity == 0 ? new LongStack()
+                    : new LongStack(Math.abs(capacity), capacity > 0);
+            return new Subject() {
+                public long add(long value) { stack.push(value); return value; }
+                public long remove() { return stack.pop(); }
+                public long peek() { return stack.peek(); }
+                public int size() { return stack.size(); }
+                public boolean isEmpty() { return stack.isEmpty(); }
+                public void clear() { stack.clear(); }
+            };
+        });
+    }
+
+    /**
+     * Helper method: runs a collection with the default capacity, with a
+     * capacity of 1 that grows, and bounded.
+     *
+     * @param fifo True for a queue, false for a stack.
+     * @param factory The factory of the collection: 0 for the default
+     *                capacity, a negative capacity for an unbounded one, and
+     *                a positive capacity for a bounded one.
+     */
+    private static void check(boolean fifo, IntFunction<Subject> factory) {
+        run(fifo, factory.apply(0), Integer.MAX_VALUE, new Random(1));
+        run(fifo, factory.apply(-1), Integer.MAX_VALUE, new Random(2));
+        run(fifo, factory.apply(BOUND), BOUND, new Random(3));
+    }
+
+    /**
+     * Helper method: applies random operations to a collection and to an
+     * <b>ArrayDeque</b>, and compares them after each operation.
+     *
+     * @param fifo True for a queue, false for a stack.
+     * @param subject The collection under test.
+     * @param bound The largest number of values, or Integer.MAX_VALUE.
+     * @param random The random generator of the operations.
+     */
+    private static void run(boolean fifo, Subject subject, int bound, Random random) {
+        ArrayDeque<Long> expected = new ArrayDeque<>();
+        for (int k = 0; k < OPERATIONS; k++) {
+            // phases favouring insertions, then removals, to grow and to empty
+            boolean growing = (k / 500) % 2 == 0;
+            int operation = random.nextInt(100);
+            if (operation == 0) {
+                subject.clear();
+                expected.clear();
+            } else if (operation < (growing ? 70 : 35)) {
+                long value = random.nextLong();
+                if (expected.size() == bound) {
+                    try {
+                        subject.add(value);
+                        fail("Added to a full collection");
+                    } catch (IllegalStateException e) {
+                        // the collection is bounded and full
+                    }
+                } else {
+                    expected.addLast(subject.add(value));
+                }
+            } else if (operation < 90) {
+                if (expected.isEmpty()) {
+                    try {
+                        subject.remove();
+                        fail("Removed from an empty collection");
+                    } catch (EmptyQueueException | EmptyStackException e) {
+                        // the collection is empty
+                    }
+                } else {
+                    long value = fifo ? expected.removeFirst() : expected.removeLast();
+                    assertEquals(value, subject.remove());
+                }
+            } else if (!expected.isEmpty()) {
+                assertEquals(fifo ? expected.getFirst() : expected.getLast(),
+                        (Long) subject.peek());
+            }
+            assertEquals(expected.size(), subject.size());
+            assertTrue(expected.isEmpty() == subject.isEmpty());
+        }
+    }
+
+}